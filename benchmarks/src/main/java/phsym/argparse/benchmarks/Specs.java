@@ -0,0 +1,104 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import phsym.argparse.ArgParse;
+import phsym.argparse.arguments.Type;
+
+/**
+ * Builders for benchmark specifications
+ * @author phsym
+ *
+ */
+final class Specs implements Type {
+	
+	private Specs() {
+	}
+	
+	/**
+	 * Build a specification with a mix of argument types
+	 * @param size The number of arguments
+	 * @return The parser
+	 */
+	static ArgParse spec(int size) {
+		ArgParse parser = new ArgParse("bench")
+			.description("Benchmark specification")
+			.epilog("End of help");
+		for(int i = 0; i < size; i++) {
+			switch(i % 4) {
+			case 0:
+				parser.add(INT, "-i" + i, "--int-" + i).ge(0).lt(1000000).help("Int option " + i);
+				break;
+			case 1:
+				parser.add(STRING, "-s" + i, "--string-" + i).help("String option " + i).setDefault("none");
+				break;
+			case 2:
+				parser.add(BOOL, "-b" + i, "--bool-" + i).help("Bool option " + i);
+				break;
+			default:
+				parser.add(STRING_ARRAY, "-l" + i, "--list-" + i).help("List option " + i);
+			}
+		}
+		return parser;
+	}
+	
+	/**
+	 * Build arguments giving a value to every 4th argument of each type of a specification built with {@link #spec(int)}
+	 * @param size The number of arguments in the specification
+	 * @return The arguments
+	 */
+	static String[] argv(int size) {
+		List<String> args = new ArrayList<>();
+		for(int i = 0; i < size; i++) {
+			if((i / 4) % 4 != 0)
+				continue;
+			switch(i % 4) {
+			case 0:
+				args.add("--int-" + i);
+				args.add(Integer.toString(i));
+				break;
+			case 1:
+				args.add("-s" + i);
+				args.add("value" + i);
+				break;
+			case 2:
+				args.add("-b" + i);
+				break;
+			default:
+				args.add("-l" + i);
+				args.add("a, b, c");
+			}
+		}
+		return args.toArray(new String[args.size()]);
+	}
+}
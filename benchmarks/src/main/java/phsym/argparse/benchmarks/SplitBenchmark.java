@@ -0,0 +1,118 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import phsym.argparse.arguments.impl.StringArrayArgument;
+import phsym.argparse.arguments.impl.StringMapArgument;
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Compare the {@link StringArrayArgument} and {@link StringMapArgument} splitters with
+ * the regex based splitting they replaced
+ * @author phsym
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitBenchmark {
+	
+	@Param({"10", "10000"})
+	private int size;
+	
+	private String list;
+	private String map;
+	private StringArrayArgument arrayArg;
+	private StringMapArgument mapArg;
+	
+	@Setup
+	public void setup() throws ArgParseException {
+		StringBuilder l = new StringBuilder();
+		StringBuilder m = new StringBuilder();
+		for(int i = 0; i < size; i++) {
+			if(i > 0) {
+				l.append(i % 2 == 0 ? ", " : ",");
+				m.append(", ");
+			}
+			l.append("shard-").append(i);
+			m.append("key").append(i).append(" : value").append(i);
+		}
+		list = l.toString();
+		map = m.toString();
+		arrayArg = new StringArrayArgument();
+		arrayArg.names("-l");
+		mapArg = new StringMapArgument();
+		mapArg.names("-m");
+	}
+	
+	@Benchmark
+	public List<String> arrayScanner() throws ArgParseException {
+		return arrayArg.parse(list);
+	}
+	
+	@Benchmark
+	public List<String> arrayRegex() {
+		return Arrays.asList(Arrays.stream(list.split("\\s*" + ',' + "\\s*"))
+			.toArray(String[]::new));
+	}
+	
+	@Benchmark
+	public Map<String, String> mapScanner() throws ArgParseException {
+		return mapArg.parse(map);
+	}
+	
+	@Benchmark
+	public Map<String, String> mapRegex() {
+		return Arrays.stream(map.split("\\s*" + ',' + "\\s*"))
+			.map((s) -> s.split("\\s*" + ':' + "\\s*"))
+			.reduce(new HashMap<>(), (r,e) -> {r.put(e[0], e[1]); return r;}, (a, b) -> {a.putAll(b); return a;});
+	}
+}
@@ -0,0 +1,121 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import phsym.argparse.arguments.impl.FileArgument;
+import phsym.argparse.arguments.impl.IntArgument;
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Measure value validation of {@link IntArgument} and {@link FileArgument}, on valid and invalid values
+ * @author phsym
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+	
+	private IntArgument intArg;
+	private FileArgument fileArg;
+	private FileArgument dirArg;
+	private File file;
+	private File dir;
+	
+	@Setup(Level.Trial)
+	public void setup() throws ArgParseException, IOException {
+		intArg = new IntArgument().positive().lt(100000).andAssertInt((i) -> i % 2 == 0);
+		intArg.names("-i");
+		fileArg = new FileArgument().exists(true);
+		fileArg.names("-f");
+		dirArg = new FileArgument().exists(true).directory(true);
+		dirArg.names("-d");
+		file = File.createTempFile("bench", "file");
+		dir = file.getParentFile();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+	
+	@Benchmark
+	public long intValid() throws ArgParseException {
+		return intArg.processBits("4242");
+	}
+	
+	@Benchmark
+	public Object intInvalid() {
+		try {
+			return intArg.processBits("4243");
+		} catch(ArgParseException e) {
+			return e;
+		}
+	}
+	
+	@Benchmark
+	public Object fileExisting() throws ArgParseException {
+		return fileArg.parse(file.getPath());
+	}
+	
+	@Benchmark
+	public Object directoryExisting() throws ArgParseException {
+		return dirArg.parse(dir.getPath());
+	}
+	
+	@Benchmark
+	public Object fileMissing() {
+		try {
+			return fileArg.parse(file.getPath() + ".missing");
+		} catch(ArgParseException e) {
+			return e;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Collect consumers and actions to call while parsing, and run them once all arguments
+ * have been parsed and checked. Calls are started in command line order. Actions of different arguments
+ * run concurrently on an executor, unless ordered with {@link Argument#after(Argument...)}. Actions of a
+ * same argument run in order
+ * @author phsym
+ *
+ */
+final class ActionDispatcher {
+	
+	/**
+	 * Executor running tasks in the calling thread
+	 */
+	static final Executor INLINE = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+	
+	/**
+	 * A call to the consumers and actions of an argument, creating exceptions with or without stack trace
+	 * like the parsing thread
+	 */
+	private static final class Call implements Runnable {
+		private final Argument<?> arg;
+		private final Object value;
+		private final boolean stackless;
+		
+		Call(Argument<?> arg, Object value, boolean stackless) {
+			this.arg = arg;
+			this.value = value;
+			this.stackless = stackless;
+		}
+
+		@Override
+		public void run() {
+			boolean previous = ArgParseException.setStackless(stackless);
+			try {
+				arg.dispatch(value);
+			} finally {
+				ArgParseException.setStackless(previous);
+			}
+		}
+	}
+	
+	/**
+	 * Value of a reserved call, until it is filled
+	 */
+	private static final Object PENDING = new Object();
+	
+	private final Map<Argument<?>, Integer> ordinals;
+	private final Executor executor;
+	private final List<Argument<?>> deferred = new ArrayList<>();
+	private final List<Object> values = new ArrayList<>();
+	
+	/**
+	 * Constructor
+	 * @param ordinals The parser argument ordinals, indexed by argument identity
+	 * @param executor The executor to run actions on
+	 */
+	ActionDispatcher(Map<Argument<?>, Integer> ordinals, Executor executor) {
+		this.ordinals = ordinals;
+		this.executor = executor;
+	}
+	
+	/**
+	 * Record a call to the consumers and actions of an argument
+	 * @param arg The argument
+	 * @param value The checked value
+	 */
+	void defer(Argument<?> arg, Object value) {
+		deferred.add(arg);
+		values.add(value);
+	}
+	
+	/**
+	 * Reserve the place of a call whose value is known later, to keep calls in command line order.
+	 * Calls which are never filled don't run
+	 * @param arg The argument
+	 * @return The call index, to fill it with {@link #fill(int, Object)}
+	 */
+	int reserve(Argument<?> arg) {
+		deferred.add(arg);
+		values.add(PENDING);
+		return values.size() - 1;
+	}
+	
+	/**
+	 * Set the value of a reserved call
+	 * @param call The call index returned by {@link #reserve(Argument)}
+	 * @param value The checked value
+	 */
+	void fill(int call, Object value) {
+		values.set(call, value);
+	}
+	
+	/**
+	 * Propagate the completion of the last call of an argument to the completion of all its calls
+	 */
+	private static final class Relay implements BiConsumer<Void, Throwable> {
+		private final CompletableFuture<Void> done;
+		
+		Relay(CompletableFuture<Void> done) {
+			this.done = done;
+		}
+
+		@Override
+		public void accept(Void v, Throwable t) {
+			if(t == null)
+				done.complete(null);
+			else
+				done.completeExceptionally(t);
+		}
+	}
+	
+	/**
+	 * Run all recorded calls in the order they were recorded, and wait for them to complete.
+	 * A call starts once the previous call of the same argument, and all calls of the arguments
+	 * it must run after, have completed
+	 * @throws RuntimeException If an action failed
+	 */
+	void run() {
+		if(deferred.isEmpty())
+			return;
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Void>[] done = new CompletableFuture[ordinals.size()];
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Void>[] last = new CompletableFuture[ordinals.size()];
+		int[] slots = new int[deferred.size()];
+		for(int i = 0; i < slots.length; i++) {
+			slots[i] = ordinals.get(deferred.get(i));
+			if(values.get(i) != PENDING)
+				done[slots[i]] = new CompletableFuture<>();
+		}
+		boolean stackless = ArgParseException.isStackless();
+		List<CompletableFuture<Void>> all = new ArrayList<>(deferred.size());
+		List<CompletableFuture<Void>> before = new ArrayList<>();
+		for(int i = 0; i < deferred.size(); i++) {
+			if(values.get(i) == PENDING)
+				continue;
+			Argument<?> arg = deferred.get(i);
+			int slot = slots[i];
+			before.clear();
+			if(last[slot] != null)
+				before.add(last[slot]);
+			for(Argument<?> b : arg.getAfter()) {
+				Integer ordinal = ordinals.get(b);
+				if(ordinal != null && done[ordinal] != null)
+					before.add(done[ordinal]);
+			}
+			CompletableFuture<Void> f;
+			if(before.isEmpty())
+				f = CompletableFuture.completedFuture(null);
+			else if(before.size() == 1)
+				f = before.get(0);
+			else
+				f = CompletableFuture.allOf(before.toArray(new CompletableFuture<?>[before.size()]));
+			f = f.thenRunAsync(new Call(arg, values.get(i), stackless), executor);
+			last[slot] = f;
+			all.add(f);
+		}
+		// Calls waiting for arguments recorded later start once all calls of those are scheduled
+		for(int i = 0; i < last.length; i++) {
+			if(last[i] != null)
+				last[i].whenComplete(new Relay(done[i]));
+		}
+		try {
+			CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[all.size()])).join();
+		} catch(CompletionException e) {
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if(e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,302 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Reader and cache for <code>@file</code> argument files. An argument file contains
+ * arguments split with shell quoting rules (see {@link CommandLineTokenizer}), and may include
+ * other argument files. Use <code>@@</code> to pass an argument starting with a literal <code>@</code>.
+ * <p>
+ * Files are memory-mapped, and kept in cache until their modification time or size change,
+ * so the same instance can be shared between parsers in a long running process. The cache is bounded
+ * in bytes, and least recently used files are evicted first. Mapped memory is released once an evicted
+ * file is garbage collected. Files larger than the maximum file size are rejected before being mapped.
+ * @author phsym
+ *
+ */
+public final class ArgFiles {
+	
+	private final Map<Path, Content> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final long maxFileSize;
+	private final long maxCachedBytes;
+	private long cachedBytes;
+	
+	/**
+	 * Cached content of a file
+	 */
+	private static final class Content {
+		final long modified;
+		final long size;
+		final CharSequence chars;
+		
+		Content(long modified, long size, CharSequence chars) {
+			this.modified = modified;
+			this.size = size;
+			this.chars = chars;
+		}
+	}
+	
+	/**
+	 * Constructor
+	 * @param maxFileSize The maximum size of an argument file, up to {@link Integer#MAX_VALUE} bytes
+	 * @param maxCachedBytes The maximum total size of cached files. Files larger than that are read but not cached
+	 */
+	public ArgFiles(long maxFileSize, long maxCachedBytes) {
+		if(maxFileSize <= 0 || maxFileSize > Integer.MAX_VALUE || maxCachedBytes < 0)
+			throw new IllegalArgumentException("maxFileSize must be between 1 and " + Integer.MAX_VALUE + ", and maxCachedBytes must be positive");
+		this.maxFileSize = maxFileSize;
+		this.maxCachedBytes = maxCachedBytes;
+	}
+	
+	/**
+	 * Constructor, accepting files up to 16 MiB and caching up to 64 MiB
+	 */
+	public ArgFiles() {
+		this(16 << 20, 64 << 20);
+	}
+	
+	/**
+	 * Get the content of an argument file, from cache if it has not changed
+	 * @param path The file path
+	 * @return The file content
+	 * @throws IOException If the file could not be read, or is larger than the maximum file size
+	 */
+	public CharSequence read(Path path) throws IOException {
+		Path key = path.toAbsolutePath().normalize();
+		BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+		long modified = attrs.lastModifiedTime().toMillis();
+		Content content;
+		synchronized(cache) {
+			content = cache.get(key);
+		}
+		if(content == null || content.modified != modified || content.size != attrs.size()) {
+			content = new Content(modified, attrs.size(), map(key, maxFileSize));
+			store(key, content);
+		}
+		return content.chars;
+	}
+	
+	/**
+	 * Cache the content of a file, evicting least recently used files to stay within the cache size
+	 * @param key The file path
+	 * @param content The file content
+	 */
+	private void store(Path key, Content content) {
+		synchronized(cache) {
+			Content previous = cache.remove(key);
+			if(previous != null)
+				cachedBytes -= previous.size;
+			if(content.size > maxCachedBytes)
+				return;
+			Iterator<Content> it = cache.values().iterator();
+			while(cachedBytes + content.size > maxCachedBytes) {
+				cachedBytes -= it.next().size;
+				it.remove();
+			}
+			cache.put(key, content);
+			cachedBytes += content.size;
+		}
+	}
+	
+	/**
+	 * @return The total size of cached files
+	 */
+	long cachedBytes() {
+		synchronized(cache) {
+			return cachedBytes;
+		}
+	}
+	
+	/**
+	 * Drop all cached files
+	 */
+	public void clear() {
+		synchronized(cache) {
+			cache.clear();
+			cachedBytes = 0;
+		}
+	}
+	
+	/**
+	 * Map a file in memory. ASCII files are used directly from the mapped buffer,
+	 * other files are decoded as UTF-8
+	 * @param path The file path
+	 * @param maxSize The maximum file size
+	 * @return The file content
+	 * @throws IOException If the file could not be read, or is larger than the maximum size
+	 */
+	private static CharSequence map(Path path, long maxSize) throws IOException {
+		ByteBuffer bytes;
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size > maxSize)
+				throw new IOException("File is " + size + " bytes long, maximum is " + maxSize);
+			bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		int len = bytes.limit();
+		for(int i = 0; i < len; i++) {
+			if(bytes.get(i) < 0)
+				return StandardCharsets.UTF_8.decode(bytes).asReadOnlyBuffer();
+		}
+		return new AsciiSequence(bytes, 0, len);
+	}
+	
+	/**
+	 * Expand argument files found in a sequence of arguments
+	 * @param args The arguments
+	 * @return The expanded arguments
+	 */
+	TokenSource expand(Iterator<String> args) {
+		return new Expander(args);
+	}
+	
+	/**
+	 * A read-only view of ASCII bytes as characters
+	 */
+	private static final class AsciiSequence implements CharSequence {
+		private final ByteBuffer bytes;
+		private final int offset;
+		private final int length;
+		
+		AsciiSequence(ByteBuffer bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) bytes.get(offset + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new AsciiSequence(bytes, offset + start, end - start);
+		}
+		
+		@Override
+		public String toString() {
+			byte[] b = new byte[length];
+			for(int i = 0; i < length; i++)
+				b[i] = bytes.get(offset + i);
+			return new String(b, StandardCharsets.ISO_8859_1);
+		}
+	}
+	
+	/**
+	 * Lazily expand <code>@file</code> arguments, including nested ones
+	 */
+	private final class Expander implements TokenSource {
+		
+		private final List<Iterator<String>> stack = new ArrayList<>();
+		private final List<Path> files = new ArrayList<>();
+		private String pending;
+		
+		Expander(Iterator<String> args) {
+			stack.add(args);
+			files.add(null);
+		}
+		
+		/**
+		 * Open an argument file, resolving its path against the including file
+		 * @param name The file name
+		 * @throws ArgParseException If the file could not be read, or is already being expanded
+		 */
+		private void push(String name) throws ArgParseException {
+			Path including = files.get(files.size() - 1);
+			Path path = Paths.get(name);
+			if(including != null && including.getParent() != null)
+				path = including.getParent().resolve(path);
+			path = path.toAbsolutePath().normalize();
+			if(files.contains(path))
+				throw new ArgParseException("Recursive inclusion of argument file " + path);
+			try {
+				stack.add(new CommandLineTokenizer(read(path)).validate());
+				files.add(path);
+			} catch(IOException e) {
+				throw new ArgParseException("Could not read argument file " + path, e);
+			} catch(ArgParseException e) {
+				throw new ArgParseException("Invalid argument file " + path + " : " + e.getMessage(), e);
+			}
+		}
+		
+		@Override
+		public boolean hasNext() throws ArgParseException {
+			while(pending == null && !stack.isEmpty()) {
+				Iterator<String> it = stack.get(stack.size() - 1);
+				if(!it.hasNext()) {
+					stack.remove(stack.size() - 1);
+					files.remove(files.size() - 1);
+					continue;
+				}
+				String token = it.next();
+				if(token.length() < 2 || token.charAt(0) != '@')
+					pending = token;
+				else if(token.charAt(1) == '@')
+					pending = token.substring(1);
+				else
+					push(token.substring(1));
+			}
+			return pending != null;
+		}
+
+		@Override
+		public String next() throws ArgParseException {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			String token = pending;
+			pending = null;
+			return token;
+		}
+	}
+}
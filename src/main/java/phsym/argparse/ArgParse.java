@@ -28,27 +28,35 @@ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
 OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package phsym.argparse;
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import phsym.argparse.arguments.Argument;
 import phsym.argparse.arguments.IHelpString;
 import phsym.argparse.arguments.Type;
+import phsym.argparse.arguments.TypeRegistry;
 import phsym.argparse.exceptions.ArgParseException;
 import phsym.argparse.exceptions.ArgumentConflictException;
 import phsym.argparse.exceptions.InvalidArgumentNameException;
-import phsym.argparse.exceptions.MissingArgumentException;
-import phsym.argparse.exceptions.UnknownArgumentException;
-import phsym.argparse.exceptions.ValueRequiredException;
 
 /**
  * Argument parsing is built with this class
@@ -58,88 +66,168 @@ import phsym.argparse.exceptions.ValueRequiredException;
 public class ArgParse {
 	
 	private List<Argument<?>> arguments;
+	private Map<String, Argument<?>> index;
 	private List<IHelpString> helpers;
 	private String prog;
 	private String version;
 	private String description;
 	private String epilog;
 	private Consumer<Exception> exceptionHandler;
-
+	private TypeRegistry types = TypeRegistry.global();
+	private ArgFiles argFiles;
+	private Argument<?> helpArgument;
+	private Argument<?> versionArgument;
+	private boolean defaultErrorHandler;
+	private Executor actionExecutor;
+	private Executor validationExecutor;
+	private boolean stacklessErrors;
+	private volatile CompiledParser compiled;
+	private volatile HelpCache helpCache;
+	
+	private static final int SNAPSHOT_MAGIC = 0x4A415053;
+	private static final int SNAPSHOT_VERSION = 5;
+	private static final byte SNAPSHOT_LABEL = 0;
+	private static final byte SNAPSHOT_ARGUMENT = 1;
+	private static final byte SNAPSHOT_HELP = 2;
+	private static final byte SNAPSHOT_VERSION_ARGUMENT = 3;
+	
 	/**
-	 * Create a new argument parser
-	 * @param prog The program name
+	 * Action of the default help argument : print the help, then exit.
+	 * Built-in actions are classes rather than lambdas, so that building a parser does not trigger lambda bootstrapping
 	 */
-	public ArgParse(String prog) {
-		this.prog = prog;
-		arguments = new LinkedList<>();
-		helpers = new LinkedList<>();
+	private final class PrintHelp implements Runnable {
+		@Override
+		public void run() {
+			printHelp();
+			System.exit(1);
+		}
 	}
 	
 	/**
-	 * Look for an argument definition by its name
-	 * @param name The argument name
-	 * @return An optional {@link Argument} if it exists
+	 * Action of the version argument : print the version, then exit
 	 */
-	private Optional<Argument<?>> findByName(String name) {
-		return arguments.stream()
-			.filter((a) -> a.hasName(name))
-			.findFirst();
+	private final class PrintVersion implements Runnable {
+		@Override
+		public void run() {
+			printVersion();
+			System.exit(1);
+		}
 	}
 	
 	/**
-	 * Look for an argument having one of the given names. Return the first found
-	 * @param names Argument names to look for
-	 * @return An optional {@link Argument} if found
+	 * Default error handler : print the error message and the help, then exit
 	 */
-	private Optional<Argument<?>> findOneByNames(String ... names) {
-		return arguments.stream()
-			.filter((a) -> a.hasOneOfNames(names))
-			.findFirst();
+	private final class PrintError implements Consumer<Exception> {
+		@Override
+		public void accept(Exception e) {
+			System.err.println(e.getMessage());
+			printHelp();
+			System.exit(1);
+		}
 	}
 	
 	/**
-	 * Process default values for arguments that have not been parsed
-	 * @param values The map that will contain results
+	 * A line of text in the help
 	 */
-	private void processDefault(Map<String, Object> values) {
-		arguments.stream()
-			.filter(Argument::hasNotBeenProcessed)
-			.filter(Argument::hasDefault)
-			.forEach((a) -> values.put(a.getDestination(), a.processDefault()));
+	private static final class Label implements IHelpString {
+		private final String label;
+		
+		Label(String label) {
+			this.label = label;
+		}
+
+		@Override
+		public String helpStr() {
+			return label;
+		}
 	}
 	
 	/**
-	 * Check that all required arguments have been parsed
-	 * @throws MissingArgumentException if any required argument is missing
+	 * A rendered help text, with the stamp of the arguments it has been rendered from
 	 */
-	private void checkRequired() throws MissingArgumentException {
-		Optional<Argument<?>> missing = arguments.stream()
-			.filter(Argument::hasNotBeenProcessed)
-			.filter(Argument::isRequired)
-			.findFirst();
-		if(missing.isPresent())
-			throw new MissingArgumentException(missing.get());
+	private static final class HelpCache {
+		final String text;
+		final long stamp;
+		
+		HelpCache(String text, long stamp) {
+			this.text = text;
+			this.stamp = stamp;
+		}
 	}
 
+	/**
+	 * Create a new argument parser
+	 * @param prog The program name
+	 */
+	public ArgParse(String prog) {
+		this.prog = prog;
+		arguments = new ArrayList<>();
+		index = new HashMap<>();
+		helpers = new LinkedList<>();
+	}
+	
+	/**
+	 * Look for an argument having one of the given names. Return the first found
+	 * @param names Argument names to look for
+	 * @return The argument if found, else <code>null</code>
+	 */
+	private Argument<?> findOneByNames(String ... names) {
+		for(String n : names) {
+			Argument<?> a = index.get(n);
+			if(a != null)
+				return a;
+		}
+		return null;
+	}
+	
 	/**
 	 * Add a argument
 	 * @param arg The argument to add
-	 * @return The added argument so it can be configured
+	 * @return The added argument so it can be configured. It is also the key to retrieve its value from a {@link ParseResult}
 	 */
 	public <E, T extends Argument<E>> T add(T arg) {
 		Objects.requireNonNull(arg, "arg must be non null");
 		String[] names = arg.getNames();
 		Objects.requireNonNull(names, "Argument needs at least 1 name");
 
-		if(findOneByNames(names).isPresent())
+		if(findOneByNames(names) != null)
 			throw new ArgumentConflictException("Argument " + names[0] + " is already registered");
 		arguments.add(arg);
+		for(String n : names)
+			index.put(n, arg);
 		helpers.add(arg);
+		compiled = null;
+		helpCache = null;
 		return arg;
 	}
 	
+	/**
+	 * Add an argument read from a snapshot, without checking its names
+	 * @param arg The argument to add
+	 */
+	private void addTrusted(Argument<?> arg) {
+		arguments.add(arg);
+		for(String n : arg.getNames())
+			index.put(n, arg);
+		helpers.add(arg);
+	}
+	
 	/**
 	 * Add an argument
+	 * @param factory The factory creating the argument to add (eg: <code>IntArgument::new</code>)
+	 * @param name The name for this argument (eg: "-a")
+	 * @param otherNames Any additional names for the argument (eg: "--arg")
+	 * @return The added argument so it can be configured
+	 * @throws InvalidArgumentNameException If the name is not valid
+	 */
+	public <E, T extends Argument<E>> T add(Supplier<T> factory, String name, String ... otherNames) throws InvalidArgumentNameException {
+		T arg = factory.get();
+		arg.names(name, otherNames);
+		return add(arg);
+	}
+	
+	/**
+	 * Add an argument. Types registered in the parser {@link TypeRegistry} are created without reflection
 	 * @param type The class of the argument to add
 	 * @param name The name for this argument (eg: "-a")
 	 * @param otherNames Any additional names for the argument (eg: "--arg")
@@ -147,6 +235,9 @@ public class ArgParse {
 	 * @throws InvalidArgumentNameException If the name is not valid
 	 */
 	public <E, T extends Argument<E>> T add(Class<T> type, String name, String ... otherNames) throws InvalidArgumentNameException {
+		Supplier<T> factory = types.factory(type);
+		if(factory != null)
+			return add(factory, name, otherNames);
 		try {
 			T arg = type.newInstance();
 			arg.names(name, otherNames);
@@ -156,6 +247,121 @@ public class ArgParse {
 		}
 	}
 	
+	/**
+	 * Add an argument of a type registered in the parser {@link TypeRegistry}
+	 * @param type The type name (eg: "int")
+	 * @param name The name for this argument (eg: "-a")
+	 * @param otherNames Any additional names for the argument (eg: "--arg")
+	 * @return The added argument so it can be configured
+	 * @throws InvalidArgumentNameException If the name is not valid
+	 * @throws IllegalArgumentException If the type is unknown
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Argument<?>> T add(String type, String name, String ... otherNames) throws InvalidArgumentNameException {
+		Supplier<? extends Argument<?>> factory = types.factory(type);
+		if(factory == null)
+			throw new IllegalArgumentException("Unknown argument type " + type);
+		Argument<?> arg = factory.get();
+		arg.names(name, otherNames);
+		return (T) add(arg);
+	}
+	
+	/**
+	 * Set the registry used to create arguments from their type. Default is {@link TypeRegistry#global()}
+	 * @param types The type registry
+	 * @return this
+	 */
+	public ArgParse types(TypeRegistry types) {
+		this.types = Objects.requireNonNull(types, "types must be non null");
+		return this;
+	}
+	
+	/**
+	 * Freeze the current specification into a {@link CompiledParser}. The result is cached
+	 * until a new argument is added or an argument setting changes
+	 * @return The compiled parser
+	 */
+	public CompiledParser compile() {
+		CompiledParser c = compiled;
+		long stamp = specStamp();
+		if(c == null || c.stamp() != stamp) {
+			c = new CompiledParser(arguments, index, argFiles, actionExecutor, validationExecutor, stacklessErrors, stamp);
+			compiled = c;
+		}
+		return c;
+	}
+	
+	/**
+	 * Expand <code>@file</code> arguments with the content of the file. Files are cached by this parser
+	 * @return this
+	 * @see ArgFiles
+	 */
+	public ArgParse expandArgFiles() {
+		return expandArgFiles(new ArgFiles());
+	}
+	
+	/**
+	 * Expand <code>@file</code> arguments with the content of the file, using a shared file cache
+	 * @param argFiles The argument files reader and cache
+	 * @return this
+	 * @see ArgFiles
+	 */
+	public ArgParse expandArgFiles(ArgFiles argFiles) {
+		this.argFiles = Objects.requireNonNull(argFiles, "argFiles must be non null");
+		compiled = null;
+		return this;
+	}
+	
+	/**
+	 * Run consumers and actions only once all arguments have been parsed and checked, so that no
+	 * action runs when parsing fails. Actions run in the parsing thread, in command line order, unless ordered
+	 * otherwise with {@link Argument#after(Argument...)}. Actions of {@link Argument#eager(boolean) eager}
+	 * arguments, such as help and version, still run as soon as they are parsed
+	 * @return this
+	 */
+	public ArgParse deferActions() {
+		return deferActions(ActionDispatcher.INLINE);
+	}
+	
+	/**
+	 * Run consumers and actions only once all arguments have been parsed and checked, so that no
+	 * action runs when parsing fails. Actions of different arguments run concurrently on the given executor
+	 * (which may use virtual threads where available), unless ordered with {@link Argument#after(Argument...)}.
+	 * Actions of a same argument run in order. Parsing returns once all actions have completed
+	 * @param executor The executor to run actions on
+	 * @return this
+	 */
+	public ArgParse deferActions(Executor executor) {
+		this.actionExecutor = Objects.requireNonNull(executor, "executor must be non null");
+		compiled = null;
+		return this;
+	}
+	
+	/**
+	 * Validate values of {@link Argument#isIoBound() I/O bound} arguments, such as file arguments, concurrently
+	 * on the given executor while parsing goes on. All validations complete before required arguments are checked,
+	 * and errors are reported in command line order. Arguments with consumers or actions are only validated
+	 * concurrently when actions are {@link #deferActions() deferred}
+	 * @param executor The executor to run validations on (eg: a virtual thread executor where available)
+	 * @return this
+	 */
+	public ArgParse parallelValidation(Executor executor) {
+		this.validationExecutor = Objects.requireNonNull(executor, "executor must be non null");
+		compiled = null;
+		return this;
+	}
+	
+	/**
+	 * Create parsing errors without stack trace. Much cheaper when many invalid argument lists are
+	 * expected, for example when validating batches
+	 * @return this
+	 */
+	public ArgParse stacklessErrors() {
+		stacklessErrors = true;
+		compiled = null;
+		return this;
+	}
+	
 	/**
 	 * Add a description for the program
 	 * @param description The description
@@ -163,6 +369,7 @@ public class ArgParse {
 	 */
 	public ArgParse description(String description) {
 		this.description = description;
+		helpCache = null;
 		return this;
 	}
 	
@@ -173,10 +380,11 @@ public class ArgParse {
 	 */
 	public ArgParse version(String version) {
 		this.version = version;
-		add(Type.BOOL, "-v")
+		helpCache = null;
+		versionArgument = add(Type.BOOL, "-v")
 			.help("Print version")
-			.action(this::printVersion)
-			.action(() -> System.exit(1));
+			.eager(true)
+			.action(new PrintVersion());
 		return this;
 	}
 	
@@ -187,6 +395,7 @@ public class ArgParse {
 	 */
 	public ArgParse epilog(String epilog) {
 		this.epilog = epilog;
+		helpCache = null;
 		return this;
 	}
 	
@@ -209,10 +418,8 @@ public class ArgParse {
 	 * @return this
 	 */
 	public ArgParse addDefaultErrorHandler() {
-		onError((e) -> System.err.println(e.getMessage()))
-			.onError((e) -> printHelp())
-			.onError((e) -> System.exit(1));
-		return this;
+		defaultErrorHandler = true;
+		return onError(new PrintError());
 	}
 	
 	/**
@@ -220,10 +427,10 @@ public class ArgParse {
 	 * @return this
 	 */
 	public ArgParse defaultHelp() {
-		add(Type.BOOL, "-h")
+		helpArgument = add(Type.BOOL, "-h")
 			.help("Print this help")
-			.action(this::printHelp)
-			.action(() -> System.exit(1));
+			.eager(true)
+			.action(new PrintHelp());
 		return this;
 	}
 	
@@ -233,7 +440,8 @@ public class ArgParse {
 	 * @return this
 	 */
 	public ArgParse label(String label) {
-		helpers.add(() -> label);
+		helpers.add(new Label(label));
+		helpCache = null;
 		return this;
 	}
 	
@@ -248,66 +456,121 @@ public class ArgParse {
 	/**
 	 * Parse arguments and throw excpetion in case of failure. No error handler will be called
 	 * @param args Arguments to parse
-	 * @return A map with parsing results
+	 * @return The parsing results
 	 * @throws ArgParseException Argument parsing failed
 	 */
-	public Map<String, Object> parseThrow(String[] args) throws ArgParseException {
+	public ParseResult parseThrow(String[] args) throws ArgParseException {
 		return parseThrow(Arrays.asList(args));
 	}
 	
 	/**
 	 * Parse arguments and call error handlers in case of failure
 	 * @param args Arguments to parse
-	 * @return A map with parsing results
+	 * @return The parsing results
 	 */
-	public Map<String, Object> parse(String[] args) {
+	public ParseResult parse(String[] args) {
 		return parse(Arrays.asList(args));
 	}
 	
 	/**
 	 * Parse arguments and throw excpetion in case of failure. No error handler will be called
 	 * @param args Arguments to parse
-	 * @return A map with parsing results
+	 * @return The parsing results
 	 * @throws ArgParseException Argument parsing failed
 	 */
-	public Map<String, Object> parseThrow(List<String> args) throws ArgParseException {
-		Map<String, Object> values = new HashMap<>();
-		Iterator<String> it = args.iterator();
-		while (it.hasNext()) {
-			Object value = null;
-			String n = it.next();
-			Argument<?> arg = findByName(n)
-					.orElseThrow(() -> new UnknownArgumentException(n));
-			if(arg.requireValue()) {
-				if (it.hasNext())
-					value = arg.process(it.next());
-				else
-					throw new ValueRequiredException(arg);
-			}
-			else
-				value = arg.process();
-			values.put(arg.getDestination(), value);
+	public ParseResult parseThrow(List<String> args) throws ArgParseException {
+		return compile().parseThrow(args);
+	}
+	
+	/**
+	 * Split a command line with shell quoting rules, then parse arguments and throw exception in case of failure.
+	 * No error handler will be called
+	 * @param commandLine The command line to parse, without the program name
+	 * @return The parsing results
+	 * @throws ArgParseException Argument parsing failed
+	 * @see CommandLineTokenizer
+	 */
+	public ParseResult parseThrow(CharSequence commandLine) throws ArgParseException {
+		return compile().parseThrow(commandLine);
+	}
+	
+	/**
+	 * Split a command line with shell quoting rules, then parse arguments and call error handlers in case of failure
+	 * @param commandLine The command line to parse, without the program name
+	 * @return The parsing results
+	 * @see CommandLineTokenizer
+	 */
+	public ParseResult parse(CharSequence commandLine) {
+		try {
+			return parseThrow(commandLine);
+		} catch(ArgParseException e) {
+			handleError(e);
 		}
-		processDefault(values);
-		checkRequired();
-		return values;
+		return compile().emptyResult();
+	}
+	
+	/**
+	 * Parse arguments, collecting all errors instead of throwing the first one. No error handler will be called
+	 * @param args Arguments to parse
+	 * @return The parsing results, with collected errors in {@link ParseResult#errors()}
+	 * @see CompiledParser#parseCollect(String[])
+	 */
+	public ParseResult parseCollect(String[] args) {
+		return compile().parseCollect(args);
+	}
+	
+	/**
+	 * Parse arguments, collecting all errors instead of throwing the first one. No error handler will be called
+	 * @param args Arguments to parse
+	 * @return The parsing results, with collected errors in {@link ParseResult#errors()}
+	 * @see CompiledParser#parseCollect(String[])
+	 */
+	public ParseResult parseCollect(List<String> args) {
+		return compile().parseCollect(args);
+	}
+	
+	/**
+	 * Parse many argument lists in parallel, on the common fork-join pool. No error handler will be called
+	 * @param records The argument lists to parse
+	 * @return The outcome of each record, in input order
+	 */
+	public List<BatchResult> parseBatch(Stream<List<String>> records) {
+		return compile().parseBatch(records);
+	}
+	
+	/**
+	 * Parse many argument lists in parallel, on the given executor. No error handler will be called
+	 * @param records The argument lists to parse
+	 * @param executor The executor to run parsing on
+	 * @return The outcome of each record, in input order
+	 */
+	public List<BatchResult> parseBatch(Iterable<List<String>> records, Executor executor) {
+		return compile().parseBatch(records, executor);
 	}
 	
 	/**
 	 * Parse arguments and call error handlers in case of failure
 	 * @param args Arguments to parse
-	 * @return A map with parsing results
+	 * @return The parsing results
 	 */
-	public Map<String, Object> parse(List<String> args) {
+	public ParseResult parse(List<String> args) {
 		try {
 			return parseThrow(args);
 		} catch(ArgParseException e) {
-			if(exceptionHandler != null)
-				exceptionHandler.accept(e);
-			else
-				e.printStackTrace();
+			handleError(e);
 		}
-		return new HashMap<>();
+		return compile().emptyResult();
+	}
+	
+	/**
+	 * Call error handlers, or print the error if there is none
+	 * @param e The error
+	 */
+	private void handleError(ArgParseException e) {
+		if(exceptionHandler != null)
+			exceptionHandler.accept(e);
+		else
+			e.printStackTrace();
 	}
 
 	/**
@@ -321,32 +584,55 @@ public class ArgParse {
 	}
 	
 	/**
-	 * @return The full help text
+	 * Compute a stamp of the arguments settings, which are shown in help and compiled into parsers
+	 */
+	private long specStamp() {
+		// Computed on each parsing, without allocating an iterator
+		long stamp = arguments.size();
+		for(int i = 0; i < arguments.size(); i++)
+			stamp += arguments.get(i).getModCount();
+		return stamp;
+	}
+	
+	/**
+	 * @return The full help text. It is cached until the specification changes
 	 */
 	public String help() {
-		ByteArrayOutputStream str = new ByteArrayOutputStream();
-		PrintStream out = new PrintStream(str);
-		
-		out.print("Usage: " + prog + " ");
-		arguments.stream()
-			.filter((x) -> x.isRequired())
-			.forEach((x) -> {
-				out.print(x.getNames()[0] + " ");
-				if(x.requireValue())
-					out.print("<" + x.typeDesc() + "> ");
-			});
-		out.println("[options]");
-		
-		
-		if(description != null)
-			out.println(description);
-		helpers.stream()
-			.map(IHelpString::helpStr)
-			.forEach(out::println);
-		if(epilog != null && epilog.length() > 0)
-			out.println(epilog);
-		out.flush();
-		return str.toString();
+		HelpCache cache = helpCache;
+		long stamp = specStamp();
+		if(cache == null || stamp != cache.stamp) {
+			String nl = System.lineSeparator();
+			StringBuilder out = new StringBuilder();
+			out.append("Usage: ").append(prog).append(" ");
+			for(Argument<?> x : arguments) {
+				if(x.isRequired()) {
+					out.append(x.getNames()[0]).append(" ");
+					if(x.requireValue())
+						out.append("<").append(x.typeDesc()).append("> ");
+				}
+			}
+			out.append("[options]").append(nl);
+			if(description != null)
+				out.append(description).append(nl);
+			for(IHelpString h : helpers) {
+				h.appendHelp(out);
+				out.append(nl);
+			}
+			if(epilog != null && epilog.length() > 0)
+				out.append(epilog).append(nl);
+			cache = new HelpCache(out.toString(), stamp);
+			helpCache = cache;
+		}
+		return cache.text;
+	}
+	
+	/**
+	 * Write the help text
+	 * @param out Where to write the help text
+	 * @throws IOException If writing failed
+	 */
+	public void help(Appendable out) throws IOException {
+		out.append(help());
 	}
 	
 	/**
@@ -355,4 +641,165 @@ public class ArgParse {
 	public void printHelp() {
 		System.out.print(help());
 	}
+	
+	/**
+	 * Write a compact binary snapshot of this specification, including the rendered help text. It can be
+	 * generated at build time, and loaded back quickly with {@link #readSnapshot(InputStream)}.
+	 * The built-in help and version arguments, the default error handler, {@link #stacklessErrors() stackless errors}
+	 * and {@link #deferActions() deferred actions} are kept. Other consumers, actions and error handlers are not written,
+	 * and must be added again after loading. Executors are not written either : actions deferred on an executor are
+	 * loaded back as deferred in the parsing thread, and {@link #parallelValidation(Executor) parallel validation}
+	 * is not restored. Call {@link #deferActions(Executor)} and {@link #parallelValidation(Executor)} again after loading
+	 * @param out Where to write the snapshot
+	 * @throws IOException If writing failed
+	 * @throws NotSerializableException If an argument type is not registered in the parser {@link TypeRegistry},
+	 * or an argument has actions, assertions or a default value that can't be written
+	 */
+	public void writeSnapshot(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(SNAPSHOT_MAGIC);
+		data.writeShort(SNAPSHOT_VERSION);
+		writeString(data, prog);
+		writeString(data, version);
+		writeString(data, description);
+		writeString(data, epilog);
+		data.writeBoolean(defaultErrorHandler);
+		data.writeBoolean(argFiles != null);
+		data.writeBoolean(stacklessErrors);
+		data.writeBoolean(actionExecutor != null);
+		data.writeInt(helpers.size());
+		for(IHelpString h : helpers) {
+			if(h instanceof Label) {
+				data.writeByte(SNAPSHOT_LABEL);
+				data.writeUTF(h.helpStr());
+				continue;
+			}
+			Argument<?> arg = (Argument<?>) h;
+			String type = types.nameOf(arg.getClass());
+			if(type == null)
+				throw new NotSerializableException("Argument type " + arg.getClass().getName() + " is not registered");
+			if(arg == helpArgument)
+				data.writeByte(SNAPSHOT_HELP);
+			else if(arg == versionArgument)
+				data.writeByte(SNAPSHOT_VERSION_ARGUMENT);
+			else if(arg.hasAction())
+				throw new NotSerializableException("Argument " + arg.getNames()[0] + " has actions, which can't be written in a snapshot");
+			else
+				data.writeByte(SNAPSHOT_ARGUMENT);
+			data.writeUTF(type);
+			arg.writeSpec(data);
+		}
+		data.writeUTF(System.lineSeparator());
+		byte[] help = help().getBytes(StandardCharsets.UTF_8);
+		data.writeInt(help.length);
+		data.write(help);
+		data.flush();
+	}
+	
+	/**
+	 * Load a specification snapshot written with {@link #writeSnapshot(OutputStream)}, with
+	 * argument types from {@link TypeRegistry#global()}
+	 * @param in The snapshot
+	 * @return The loaded parser
+	 * @throws IOException If reading failed, or if this is not a valid snapshot
+	 */
+	public static ArgParse readSnapshot(InputStream in) throws IOException {
+		return readSnapshot(in, TypeRegistry.global());
+	}
+	
+	/**
+	 * Load a specification snapshot from a class path resource
+	 * @param owner The class used to load the resource
+	 * @param resource The resource name, as for {@link Class#getResourceAsStream(String)}
+	 * @return The loaded parser
+	 * @throws IOException If reading failed, or if this is not a valid snapshot
+	 */
+	public static ArgParse readSnapshot(Class<?> owner, String resource) throws IOException {
+		InputStream in = owner.getResourceAsStream(resource);
+		if(in == null)
+			throw new FileNotFoundException("Resource not found : " + resource);
+		try {
+			return readSnapshot(in);
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Load a specification snapshot written with {@link #writeSnapshot(OutputStream)}. Arguments
+	 * are read as they have been written : names are not validated nor checked for conflicts again
+	 * @param in The snapshot
+	 * @param types The registry to create arguments from
+	 * @return The loaded parser
+	 * @throws IOException If reading failed, or if this is not a valid snapshot
+	 */
+	public static ArgParse readSnapshot(InputStream in, TypeRegistry types) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if(data.readInt() != SNAPSHOT_MAGIC)
+			throw new IOException("Not a specification snapshot");
+		if(data.readUnsignedShort() != SNAPSHOT_VERSION)
+			throw new IOException("Unsupported specification snapshot version");
+		ArgParse parser = new ArgParse(readString(data)).types(types);
+		parser.version = readString(data);
+		parser.description = readString(data);
+		parser.epilog = readString(data);
+		if(data.readBoolean())
+			parser.addDefaultErrorHandler();
+		if(data.readBoolean())
+			parser.expandArgFiles();
+		if(data.readBoolean())
+			parser.stacklessErrors();
+		if(data.readBoolean())
+			parser.deferActions();
+		int count = data.readInt();
+		for(int i = 0; i < count; i++) {
+			byte kind = data.readByte();
+			if(kind == SNAPSHOT_LABEL) {
+				parser.helpers.add(new Label(data.readUTF()));
+				continue;
+			}
+			String type = data.readUTF();
+			Supplier<? extends Argument<?>> factory = types.factory(type);
+			if(factory == null)
+				throw new IOException("Unknown argument type " + type);
+			Argument<?> arg = factory.get();
+			arg.readSpec(data);
+			if(kind == SNAPSHOT_HELP) {
+				arg.eager(true).action(parser.new PrintHelp());
+				parser.helpArgument = arg;
+			} else if(kind == SNAPSHOT_VERSION_ARGUMENT) {
+				arg.eager(true).action(parser.new PrintVersion());
+				parser.versionArgument = arg;
+			}
+			parser.addTrusted(arg);
+		}
+		String nl = data.readUTF();
+		byte[] help = new byte[data.readInt()];
+		data.readFully(help);
+		if(nl.equals(System.lineSeparator()))
+			parser.helpCache = new HelpCache(new String(help, StandardCharsets.UTF_8), parser.specStamp());
+		return parser;
+	}
+	
+	/**
+	 * Write a string which may be <code>null</code>
+	 * @param out The output
+	 * @param s The string
+	 * @throws IOException If writing failed
+	 */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if(s != null)
+			out.writeUTF(s);
+	}
+	
+	/**
+	 * Read a string written with {@link #writeString(DataOutputStream, String)}
+	 * @param in The input
+	 * @return The string, or <code>null</code>
+	 * @throws IOException If reading failed
+	 */
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
 }
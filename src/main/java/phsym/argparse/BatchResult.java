@@ -0,0 +1,84 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * The outcome of parsing one record in a batch : either a {@link ParseResult} or an error
+ * @author phsym
+ *
+ */
+public final class BatchResult {
+	
+	private final int index;
+	private final ParseResult result;
+	private final ArgParseException error;
+	
+	/**
+	 * Constructor
+	 * @param index The record position in the batch
+	 * @param result The result, or <code>null</code> if parsing failed
+	 * @param error The error, or <code>null</code> if parsing succeeded
+	 */
+	BatchResult(int index, ParseResult result, ArgParseException error) {
+		this.index = index;
+		this.result = result;
+		this.error = error;
+	}
+	
+	/**
+	 * @return The record position in the batch
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Check if the record has been successfully parsed
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+	
+	/**
+	 * @return The parsing result, or <code>null</code> if parsing failed
+	 */
+	public ParseResult getResult() {
+		return result;
+	}
+	
+	/**
+	 * @return The parsing error, or <code>null</code> if parsing succeeded
+	 */
+	public ArgParseException getError() {
+		return error;
+	}
+}
@@ -0,0 +1,186 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Lazily split a command line into arguments, following POSIX shell quoting rules :
+ * <ul>
+ * <li>Arguments are separated by blanks (spaces, tabs and new lines)</li>
+ * <li>A backslash outside quotes preserves the next character. A backslash followed by a new line is a line continuation</li>
+ * <li>Characters between single quotes are preserved</li>
+ * <li>Characters between double quotes are preserved, except backslash that escapes <code>$ ` " \</code> and new line</li>
+ * <li>A <code>#</code> starting an argument starts a comment up to the end of the line</li>
+ * </ul>
+ * No expansion is performed. Arguments without quotes or escapes are sliced directly from the command line.
+ * @author phsym
+ *
+ */
+public final class CommandLineTokenizer implements Iterator<String> {
+	
+	private final CharSequence line;
+	private final int end;
+	private final StringBuilder buffer;
+	private int pos;
+	
+	/**
+	 * Constructor
+	 * @param line The command line to split
+	 */
+	public CommandLineTokenizer(CharSequence line) {
+		this.line = line;
+		this.end = line.length();
+		this.buffer = new StringBuilder();
+		this.pos = 0;
+	}
+	
+	/**
+	 * Check that all quotes are terminated, so that iterating cannot fail
+	 * @return this
+	 * @throws ArgParseException If a quote is not terminated
+	 */
+	public CommandLineTokenizer validate() throws ArgParseException {
+		int i = pos;
+		boolean tokenStart = true;
+		while(i < end) {
+			char c = line.charAt(i++);
+			if(isBlank(c)) {
+				tokenStart = true;
+				continue;
+			}
+			if(tokenStart && c == '#') {
+				while(i < end && line.charAt(i) != '\n')
+					i++;
+				continue;
+			}
+			if(c == '\\' && i < end && line.charAt(i) == '\n') {
+				i++;
+				continue;
+			}
+			tokenStart = false;
+			if(c == '\\')
+				i++;
+			else if(c == '\'') {
+				int start = i - 1;
+				while(i < end && line.charAt(i) != '\'')
+					i++;
+				if(i++ >= end)
+					throw new ArgParseException("Unterminated single quote at position " + start);
+			} else if(c == '"') {
+				int start = i - 1;
+				while(i < end && (c = line.charAt(i)) != '"')
+					i += c == '\\' ? 2 : 1;
+				if(i++ >= end)
+					throw new ArgParseException("Unterminated double quote at position " + start);
+			}
+		}
+		return this;
+	}
+	
+	/**
+	 * Check if a character separates arguments
+	 * @param c The character to check
+	 */
+	private static boolean isBlank(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+	
+	/**
+	 * Skip blanks, line continuations and comments
+	 */
+	private void skipBlanks() {
+		while(pos < end) {
+			char c = line.charAt(pos);
+			if(isBlank(c))
+				pos++;
+			else if(c == '\\' && pos + 1 < end && line.charAt(pos + 1) == '\n')
+				pos += 2;
+			else if(c == '#') {
+				while(pos < end && line.charAt(pos) != '\n')
+					pos++;
+			} else
+				return;
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		skipBlanks();
+		return pos < end;
+	}
+
+	@Override
+	public String next() {
+		if(!hasNext())
+			throw new NoSuchElementException();
+		int start = pos;
+		char c;
+		while(pos < end && !isBlank(c = line.charAt(pos)) && c != '\\' && c != '\'' && c != '"')
+			pos++;
+		if(pos == end || isBlank(line.charAt(pos)))
+			return line.subSequence(start, pos).toString();
+		
+		buffer.setLength(0);
+		buffer.append(line, start, pos);
+		while(pos < end && !isBlank(c = line.charAt(pos))) {
+			pos++;
+			if(c == '\\') {
+				if(pos == end)
+					buffer.append(c);
+				else if((c = line.charAt(pos++)) != '\n')
+					buffer.append(c);
+			} else if(c == '\'') {
+				while(pos < end && (c = line.charAt(pos++)) != '\'')
+					buffer.append(c);
+			} else if(c == '"') {
+				while(pos < end && (c = line.charAt(pos++)) != '"') {
+					if(c == '\\' && pos < end) {
+						char n = line.charAt(pos);
+						if(n == '$' || n == '`' || n == '"' || n == '\\') {
+							buffer.append(n);
+							pos++;
+							continue;
+						} else if(n == '\n') {
+							pos++;
+							continue;
+						}
+					}
+					buffer.append(c);
+				}
+			} else
+				buffer.append(c);
+		}
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,424 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.IPrimitiveArgument;
+import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.exceptions.MissingArgumentException;
+import phsym.argparse.exceptions.UnknownArgumentException;
+import phsym.argparse.exceptions.ValueRequiredException;
+
+/**
+ * An immutable snapshot of an {@link ArgParse} specification, with arguments
+ * indexed by name. Created with {@link ArgParse#compile()}
+ * @author phsym
+ *
+ */
+public final class CompiledParser {
+	
+	private final Argument<?>[] arguments;
+	private final Map<String, Argument<?>> index;
+	private final Map<Argument<?>, Integer> ordinals;
+	private final Map<String, int[]> destinations;
+	private final ArgFiles argFiles;
+	private final Executor actionExecutor;
+	private final Executor validationExecutor;
+	private final boolean stackless;
+	private final long stamp;
+	
+	/**
+	 * Constructor
+	 * @param arguments The registered arguments, in registration order
+	 * @param index The arguments indexed by each of their names
+	 * @param argFiles The argument files reader, or <code>null</code> if argument files must not be expanded
+	 * @param actionExecutor The executor running deferred actions, or <code>null</code> if actions run while parsing
+	 * @param validationExecutor The executor validating I/O bound arguments, or <code>null</code> to validate them while parsing
+	 * @param stackless If <code>true</code>, parsing errors are created without stack trace
+	 * @param stamp The stamp of the arguments settings this parser is compiled from
+	 */
+	CompiledParser(List<Argument<?>> arguments, Map<String, Argument<?>> index, ArgFiles argFiles, Executor actionExecutor,
+			Executor validationExecutor, boolean stackless, long stamp) {
+		this.arguments = arguments.toArray(new Argument<?>[arguments.size()]);
+		this.index = Collections.unmodifiableMap(new HashMap<>(index));
+		this.argFiles = argFiles;
+		this.actionExecutor = actionExecutor;
+		this.validationExecutor = validationExecutor;
+		this.stackless = stackless;
+		this.stamp = stamp;
+		this.ordinals = new IdentityHashMap<>();
+		this.destinations = new HashMap<>();
+		for(int i = 0; i < this.arguments.length; i++) {
+			Argument<?> a = this.arguments[i];
+			ordinals.put(a, i);
+			int[] slots = destinations.get(a.getDestination());
+			if(slots == null)
+				slots = new int[]{i};
+			else {
+				slots = Arrays.copyOf(slots, slots.length + 1);
+				slots[slots.length - 1] = i;
+			}
+			destinations.put(a.getDestination(), slots);
+		}
+	}
+	
+	/**
+	 * @return The stamp of the arguments settings this parser is compiled from
+	 */
+	long stamp() {
+		return stamp;
+	}
+	
+	/**
+	 * Look for an argument definition by its name
+	 * @param name The argument name
+	 * @return The argument, or <code>null</code> if no argument has this name
+	 */
+	public Argument<?> argument(String name) {
+		return index.get(name);
+	}
+	
+	/**
+	 * @return The arguments, in registration order
+	 */
+	public List<Argument<?>> arguments() {
+		return Collections.unmodifiableList(Arrays.asList(arguments));
+	}
+	
+	/**
+	 * @return A result with no value set
+	 */
+	public ParseResult emptyResult() {
+		return new ParseResult(arguments, ordinals, destinations);
+	}
+	
+	/**
+	 * Process default values for arguments that have not been parsed
+	 * @param ctx The current parsing context
+	 * @param actions Where to defer actions, or <code>null</code> to run them now
+	 */
+	private void processDefault(ParseContext ctx, ActionDispatcher actions) {
+		for(Argument<?> a : arguments) {
+			if(!ctx.hasSeen(a) && a.hasDefault()) {
+				if(actions != null && a.hasAction() && !a.isEager()) {
+					Object value = a.validateDefault();
+					if(value != null)
+						actions.defer(a, value);
+					ctx.put(a, value);
+				} else
+					ctx.put(a, a.processDefault());
+			}
+		}
+	}
+	
+	/**
+	 * Process a value, deferring actions if needed
+	 * @param arg The argument
+	 * @param value The value, or <code>null</code> for a flag argument
+	 * @param actions Where to defer actions, or <code>null</code> to run them now
+	 * @return The parsed value
+	 * @throws ArgParseException If parsing failed
+	 */
+	private static Object process(Argument<?> arg, String value, ActionDispatcher actions) throws ArgParseException {
+		if(actions == null || !arg.hasAction() || arg.isEager())
+			return arg.process(value);
+		Object parsed = arg.validate(value);
+		actions.defer(arg, parsed);
+		return parsed;
+	}
+	
+	/**
+	 * Check that all required arguments have been parsed. Arguments given with an
+	 * invalid value are not reported again as missing
+	 * @param ctx The current parsing context
+	 * @param errors Where to collect errors, or <code>null</code> to throw the first one
+	 * @throws MissingArgumentException if any required argument is missing
+	 */
+	private void checkRequired(ParseContext ctx, List<ParseError> errors) throws MissingArgumentException {
+		for(Argument<?> a : arguments) {
+			if(!ctx.hasSeen(a) && !ctx.hasFailed(a) && a.isRequired()) {
+				if(errors == null)
+					throw new MissingArgumentException(a);
+				errors.add(new ParseError(-1, null, new MissingArgumentException(a)));
+			}
+		}
+	}
+	
+	/**
+	 * Parse arguments and throw exception in case of failure. This method can safely
+	 * be called concurrently, all parsing state is local to the call
+	 * @param args Arguments to parse
+	 * @return The parsing results
+	 * @throws ArgParseException Argument parsing failed
+	 */
+	public ParseResult parseThrow(String[] args) throws ArgParseException {
+		return parseThrow(Arrays.asList(args));
+	}
+	
+	/**
+	 * Parse arguments and throw exception in case of failure
+	 * @param args Arguments to parse
+	 * @return The parsing results
+	 * @throws ArgParseException Argument parsing failed
+	 */
+	public ParseResult parseThrow(List<String> args) throws ArgParseException {
+		return parseThrow(tokens(args.iterator()));
+	}
+	
+	/**
+	 * Split a command line with shell quoting rules, then parse arguments and throw exception in case of failure.
+	 * Arguments are split lazily while parsing
+	 * @param commandLine The command line to parse, without the program name
+	 * @return The parsing results
+	 * @throws ArgParseException Argument parsing failed
+	 * @see CommandLineTokenizer
+	 */
+	public ParseResult parseThrow(CharSequence commandLine) throws ArgParseException {
+		return parseThrow(tokens(new CommandLineTokenizer(commandLine).validate()));
+	}
+	
+	/**
+	 * Parse arguments, collecting all errors instead of throwing the first one. Parsing goes on
+	 * with the next token after an error. Errors are created without stack trace, and deferred
+	 * actions don't run if any error is found
+	 * @param args Arguments to parse
+	 * @return The parsing results, with collected errors in {@link ParseResult#errors()}
+	 */
+	public ParseResult parseCollect(String[] args) {
+		return parseCollect(Arrays.asList(args));
+	}
+	
+	/**
+	 * Parse arguments, collecting all errors instead of throwing the first one
+	 * @param args Arguments to parse
+	 * @return The parsing results, with collected errors in {@link ParseResult#errors()}
+	 * @see #parseCollect(String[])
+	 */
+	public ParseResult parseCollect(List<String> args) {
+		List<ParseError> errors = new ArrayList<>();
+		boolean previous = ArgParseException.setStackless(true);
+		try {
+			ParseResult result = parseTokens(tokens(args.iterator()), errors);
+			result.setErrors(errors);
+			return result;
+		} catch(ArgParseException e) {
+			// Not reached, errors are collected
+			throw new IllegalStateException(e);
+		} finally {
+			ArgParseException.setStackless(previous);
+		}
+	}
+	
+	/**
+	 * Get the arguments to parse, with argument files expanded if enabled
+	 * @param args The raw arguments
+	 * @return The arguments to parse
+	 */
+	private TokenSource tokens(Iterator<String> args) {
+		if(argFiles != null)
+			return argFiles.expand(args);
+		return TokenSource.of(args);
+	}
+	
+	/**
+	 * Parse arguments and throw exception in case of failure
+	 * @param it Arguments to parse
+	 * @return The parsing results
+	 * @throws ArgParseException Argument parsing failed
+	 */
+	private ParseResult parseThrow(TokenSource it) throws ArgParseException {
+		if(!stackless)
+			return parseTokens(it, null);
+		boolean previous = ArgParseException.setStackless(true);
+		try {
+			return parseTokens(it, null);
+		} finally {
+			ArgParseException.setStackless(previous);
+		}
+	}
+	
+	/**
+	 * Parse arguments
+	 * @param it Arguments to parse
+	 * @param errors Where to collect errors, or <code>null</code> to throw the first one
+	 * @return The parsing results
+	 * @throws ArgParseException Argument parsing failed, and errors are not collected
+	 */
+	private ParseResult parseTokens(TokenSource it, List<ParseError> errors) throws ArgParseException {
+		ParseContext ctx = new ParseContext(emptyResult(), arguments.length);
+		ActionDispatcher actions = actionExecutor == null ? null : new ActionDispatcher(ordinals, actionExecutor);
+		ParallelValidation validation = validationExecutor == null ? null : new ParallelValidation(validationExecutor);
+		int position = 0;
+		ArgParseException failure = null;
+		try {
+			while (failure == null && it.hasNext()) {
+				String n = it.next();
+				int start = position++;
+				Argument<?> arg = null;
+				try {
+					arg = index.get(n);
+					if(arg == null)
+						throw new UnknownArgumentException(n);
+					if(arg.requireValue()) {
+						if (!it.hasNext())
+							throw new ValueRequiredException(arg);
+						String value = it.next();
+						position++;
+						if(validation != null && ParallelValidation.accepts(arg, actions)) {
+							// Seen once validated, like arguments failing on the synchronous path
+							validation.submit(start, n, arg, value, ctx, actions);
+							continue;
+						}
+						if(arg instanceof IPrimitiveArgument && !arg.hasAction() && ((IPrimitiveArgument) arg).hasPrimitiveParsing()) {
+							IPrimitiveArgument p = (IPrimitiveArgument) arg;
+							ctx.putBits(arg, p.primitiveKind(), p.processBits(value));
+						}
+						else
+							ctx.put(arg, process(arg, value, actions));
+					}
+					else
+						ctx.put(arg, process(arg, null, actions));
+					ctx.seen(arg);
+				} catch(ArgParseException e) {
+					if(errors == null)
+						failure = e;
+					else {
+						errors.add(new ParseError(start, n, e));
+						if(arg != null)
+							ctx.failed(arg);
+					}
+				}
+			}
+		} catch(ArgParseException e) {
+			// Reading arguments failed, eg: an argument file could not be read
+			if(validation != null)
+				validation.join(ctx, actions, errors);
+			if(errors == null)
+				throw e;
+			errors.add(new ParseError(position, null, e));
+			return processed(ctx.result());
+		}
+		if(failure != null) {
+			// Report errors of previous arguments first
+			if(validation != null)
+				validation.join(ctx, actions, null);
+			throw failure;
+		}
+		if(validation != null)
+			validation.join(ctx, actions, errors);
+		processDefault(ctx, actions);
+		checkRequired(ctx, errors);
+		if(actions != null && (errors == null || errors.isEmpty()))
+			actions.run();
+		return processed(ctx.result());
+	}
+	
+	/**
+	 * Record in each argument whether it has a value in a parsing result, for the deprecated
+	 * {@link Argument#hasBeenProcessed()}
+	 * @param result The parsing result
+	 * @return The result
+	 */
+	private ParseResult processed(ParseResult result) {
+		for(Argument<?> a : arguments)
+			a.setProcessed(result.has(a));
+		return result;
+	}
+	
+	/**
+	 * Parse one record of a batch, capturing the parsing error if any
+	 * @param index The record position
+	 * @param args Arguments to parse
+	 * @return The record outcome
+	 */
+	BatchResult parseRecord(int index, List<String> args) {
+		try {
+			return new BatchResult(index, parseThrow(args), null);
+		} catch(ArgParseException e) {
+			return new BatchResult(index, null, e);
+		}
+	}
+	
+	/**
+	 * Parse many argument lists against this specification, in parallel on the common fork-join pool
+	 * @param records The argument lists to parse
+	 * @return The outcome of each record, in input order
+	 */
+	public List<BatchResult> parseBatch(Stream<List<String>> records) {
+		List<List<String>> list = records.collect(Collectors.toList());
+		return IntStream.range(0, list.size())
+			.parallel()
+			.mapToObj((i) -> parseRecord(i, list.get(i)))
+			.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Parse many argument lists against this specification, in parallel on the given executor
+	 * @param records The argument lists to parse
+	 * @param executor The executor to run parsing on
+	 * @return The outcome of each record, in input order
+	 */
+	public List<BatchResult> parseBatch(Iterable<List<String>> records, Executor executor) {
+		List<CompletableFuture<BatchResult>> futures = new ArrayList<>();
+		int index = 0;
+		for(List<String> args : records) {
+			int i = index++;
+			futures.add(CompletableFuture.supplyAsync(() -> parseRecord(i, args), executor));
+		}
+		List<BatchResult> results = new ArrayList<>(futures.size());
+		for(CompletableFuture<BatchResult> f : futures) {
+			try {
+				results.add(f.join());
+			} catch(CompletionException e) {
+				if(e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				if(e.getCause() instanceof Error)
+					throw (Error) e.getCause();
+				throw e;
+			}
+		}
+		return results;
+	}
+}
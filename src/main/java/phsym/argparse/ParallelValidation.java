@@ -0,0 +1,177 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Validate values of {@link Argument#isIoBound() I/O bound} arguments concurrently on an executor
+ * while parsing goes on, then store them in the parsing context. Their place among values sharing
+ * a destination and among deferred actions is reserved when they are submitted, so that the
+ * command line order is kept
+ * @author phsym
+ *
+ */
+final class ParallelValidation {
+	
+	/**
+	 * A value being validated
+	 */
+	private static final class Task implements Supplier<Object> {
+		final int position;
+		final String token;
+		final Argument<?> arg;
+		final String value;
+		final boolean stackless;
+		final int stamp;
+		final int call;
+		CompletableFuture<Object> result;
+		
+		Task(int position, String token, Argument<?> arg, String value, boolean stackless, int stamp, int call) {
+			this.position = position;
+			this.token = token;
+			this.arg = arg;
+			this.value = value;
+			this.stackless = stackless;
+			this.stamp = stamp;
+			this.call = call;
+		}
+
+		@Override
+		public Object get() {
+			boolean previous = ArgParseException.setStackless(stackless);
+			try {
+				return arg.validate(value);
+			} catch(ArgParseException e) {
+				throw new CompletionException(e);
+			} finally {
+				ArgParseException.setStackless(previous);
+			}
+		}
+	}
+	
+	private final Executor executor;
+	private final List<Task> tasks = new ArrayList<>();
+	
+	/**
+	 * Constructor
+	 * @param executor The executor to run validations on
+	 */
+	ParallelValidation(Executor executor) {
+		this.executor = executor;
+	}
+	
+	/**
+	 * Check if an argument value can be validated concurrently
+	 * @param arg The argument
+	 * @param actions Where actions are deferred, or <code>null</code> if they run while parsing
+	 * @return <code>true</code> if the argument is I/O bound, and its actions don't have to run while parsing
+	 */
+	static boolean accepts(Argument<?> arg, ActionDispatcher actions) {
+		return arg.isIoBound() && arg.requireValue() && (!arg.hasAction() || (actions != null && !arg.isEager()));
+	}
+	
+	/**
+	 * Start validating a value, reserving its place in the context and among deferred actions
+	 * @param position The argument name position in the command line
+	 * @param token The argument name
+	 * @param arg The argument
+	 * @param value The value to validate
+	 * @param ctx The parsing context
+	 * @param actions Where actions are deferred, or <code>null</code> if arguments have no actions
+	 */
+	void submit(int position, String token, Argument<?> arg, String value, ParseContext ctx, ActionDispatcher actions) {
+		int call = actions != null && arg.hasAction() ? actions.reserve(arg) : -1;
+		Task t = new Task(position, token, arg, value, ArgParseException.isStackless(), ctx.reserve(), call);
+		t.result = CompletableFuture.supplyAsync(t, executor);
+		tasks.add(t);
+	}
+	
+	/**
+	 * Wait for all validations, store valid values at their reserved places and mark their arguments as seen
+	 * @param ctx The parsing context
+	 * @param actions Where actions are deferred, or <code>null</code> if arguments have no actions
+	 * @param errors Where to collect errors, or <code>null</code> to throw the first one in command line order
+	 * @throws ArgParseException If a value is not valid, and errors are not collected
+	 */
+	void join(ParseContext ctx, ActionDispatcher actions, List<ParseError> errors) throws ArgParseException {
+		ArgParseException first = null;
+		for(Task t : tasks) {
+			Object value;
+			try {
+				value = t.result.join();
+			} catch(CompletionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof ArgParseException) {
+					if(errors != null) {
+						insert(errors, new ParseError(t.position, t.token, (ArgParseException) cause));
+						ctx.failed(t.arg);
+					} else if(first == null)
+						first = (ArgParseException) cause;
+					continue;
+				}
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if(cause instanceof Error)
+					throw (Error) cause;
+				throw e;
+			}
+			if(first != null)
+				continue;
+			if(t.call >= 0)
+				actions.fill(t.call, value);
+			ctx.put(t.arg, value, t.stamp);
+			ctx.seen(t.arg);
+		}
+		tasks.clear();
+		if(first != null)
+			throw first;
+	}
+	
+	/**
+	 * Insert an error in a list sorted by position, after errors at the same position
+	 * @param errors The errors
+	 * @param error The error to insert
+	 */
+	private static void insert(List<ParseError> errors, ParseError error) {
+		int i = errors.size();
+		while(i > 0 && errors.get(i - 1).getPosition() > error.getPosition())
+			i--;
+		errors.add(i, error);
+	}
+}
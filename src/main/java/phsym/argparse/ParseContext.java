@@ -0,0 +1,134 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.IPrimitiveArgument;
+
+/**
+ * Hold the state of a single parsing invocation, so that a {@link CompiledParser}
+ * can be reused and shared between threads
+ * @author phsym
+ *
+ */
+final class ParseContext {
+	
+	private final boolean[] seen;
+	private boolean[] failed;
+	private final ParseResult result;
+	
+	/**
+	 * Constructor
+	 * @param result The result to fill
+	 * @param size The number of arguments in the parser
+	 */
+	ParseContext(ParseResult result, int size) {
+		this.seen = new boolean[size];
+		this.result = result;
+	}
+	
+	/**
+	 * Mark an argument as found in the parsed arguments
+	 * @param arg The argument
+	 */
+	void seen(Argument<?> arg) {
+		seen[result.slot(arg)] = true;
+	}
+	
+	/**
+	 * Check if an argument has been found in the parsed arguments
+	 * @param arg The argument
+	 */
+	boolean hasSeen(Argument<?> arg) {
+		return seen[result.slot(arg)];
+	}
+	
+	/**
+	 * Mark an argument as having an invalid value, when collecting errors
+	 * @param arg The argument
+	 */
+	void failed(Argument<?> arg) {
+		if(failed == null)
+			failed = new boolean[seen.length];
+		failed[result.slot(arg)] = true;
+	}
+	
+	/**
+	 * Check if an error has been collected for an argument
+	 * @param arg The argument
+	 */
+	boolean hasFailed(Argument<?> arg) {
+		return failed != null && failed[result.slot(arg)];
+	}
+	
+	/**
+	 * Store the value for an argument
+	 * @param arg The argument
+	 * @param value The value
+	 */
+	void put(Argument<?> arg, Object value) {
+		result.set(result.slot(arg), value);
+	}
+	
+	/**
+	 * Reserve the place of a value stored later among values sharing its destination
+	 * @return The stamp to store the value with
+	 */
+	int reserve() {
+		return result.reserve();
+	}
+	
+	/**
+	 * Store the value for an argument at a reserved place
+	 * @param arg The argument
+	 * @param value The value
+	 * @param stamp The stamp returned by {@link #reserve()}
+	 */
+	void put(Argument<?> arg, Object value, int stamp) {
+		result.set(result.slot(arg), value, stamp);
+	}
+	
+	/**
+	 * Store the primitive value for an argument
+	 * @param arg The argument
+	 * @param kind The kind of primitive, as defined in {@link IPrimitiveArgument}
+	 * @param bits The raw bits of the value
+	 */
+	void putBits(Argument<?> arg, byte kind, long bits) {
+		result.setBits(result.slot(arg), kind, bits);
+	}
+	
+	/**
+	 * @return The result being filled
+	 */
+	ParseResult result() {
+		return result;
+	}
+}
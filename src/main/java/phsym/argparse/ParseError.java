@@ -0,0 +1,90 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * An error found by {@link CompiledParser#parseCollect(String[])}
+ * @author phsym
+ *
+ */
+public final class ParseError {
+	
+	private final int position;
+	private final String token;
+	private final ArgParseException error;
+	
+	/**
+	 * Constructor
+	 * @param position The position of the faulty token in the arguments, or -1 if the error is not bound to a token
+	 * @param token The faulty token, or <code>null</code> if the error is not bound to a token
+	 * @param error The error
+	 */
+	ParseError(int position, String token, ArgParseException error) {
+		this.position = position;
+		this.token = token;
+		this.error = error;
+	}
+	
+	/**
+	 * @return The position of the faulty token in the arguments, after argument files expansion,
+	 * or -1 if the error is not bound to a token (eg: a missing argument)
+	 */
+	public int getPosition() {
+		return position;
+	}
+	
+	/**
+	 * @return The faulty token, or <code>null</code> if the error is not bound to a token
+	 */
+	public String getToken() {
+		return token;
+	}
+	
+	/**
+	 * @return The error, created without stack trace
+	 */
+	public ArgParseException getError() {
+		return error;
+	}
+	
+	/**
+	 * @return The error message
+	 */
+	public String getMessage() {
+		return error.getMessage();
+	}
+	
+	@Override
+	public String toString() {
+		return position < 0 ? getMessage() : position + ": " + getMessage();
+	}
+}
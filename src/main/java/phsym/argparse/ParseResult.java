@@ -0,0 +1,300 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.IPrimitiveArgument;
+
+/**
+ * The result of a parsing. Values are stored in slots indexed by argument ordinal, and can
+ * be retrieved with the {@link Argument} returned by {@link ArgParse#add(Argument)} as a typed key.
+ * <p>
+ * For compatibility, the result is also a read-only map from destination names
+ * (see {@link Argument#getDestination()}) to values. When several arguments share a destination,
+ * the map holds the value stored last, as if each value was put in a map while parsing.
+ * @author phsym
+ *
+ */
+public final class ParseResult extends AbstractMap<String, Object> {
+	
+	private final Argument<?>[] arguments;
+	private final Map<Argument<?>, Integer> ordinals;
+	private final Map<String, int[]> destinations;
+	private static final byte ABSENT = 0;
+	private static final byte OBJECT = 1;
+	
+	private final Object[] values;
+	private final long[] bits;
+	private final byte[] kinds;
+	private final int[] stamps;
+	private int stamp;
+	private Map<String, Object> map;
+	private List<ParseError> errors = Collections.emptyList();
+	
+	/**
+	 * Constructor
+	 * @param arguments The parser arguments, indexed by ordinal
+	 * @param ordinals The argument ordinals, indexed by argument identity
+	 * @param destinations The argument ordinals indexed by destination name
+	 */
+	ParseResult(Argument<?>[] arguments, Map<Argument<?>, Integer> ordinals, Map<String, int[]> destinations) {
+		this.arguments = arguments;
+		this.ordinals = ordinals;
+		this.destinations = destinations;
+		this.values = new Object[arguments.length];
+		this.bits = new long[arguments.length];
+		this.kinds = new byte[arguments.length];
+		this.stamps = new int[arguments.length];
+	}
+	
+	/**
+	 * Store a value
+	 * @param ordinal The argument ordinal
+	 * @param value The value
+	 */
+	void set(int ordinal, Object value) {
+		set(ordinal, value, ++stamp);
+	}
+	
+	/**
+	 * Reserve the write stamp of a value stored later, so that it is ordered as if it was stored now
+	 * @return The stamp to store the value with
+	 */
+	int reserve() {
+		return ++stamp;
+	}
+	
+	/**
+	 * Store a value with a reserved stamp
+	 * @param ordinal The argument ordinal
+	 * @param value The value
+	 * @param stamp The stamp returned by {@link #reserve()}
+	 */
+	void set(int ordinal, Object value, int stamp) {
+		values[ordinal] = value;
+		kinds[ordinal] = OBJECT;
+		stamps[ordinal] = stamp;
+	}
+	
+	/**
+	 * Set the errors collected while parsing
+	 * @param errors The errors
+	 */
+	void setErrors(List<ParseError> errors) {
+		this.errors = Collections.unmodifiableList(errors);
+	}
+	
+	/**
+	 * @return The errors collected by {@link CompiledParser#parseCollect(String[])}. Always empty for other parsing methods
+	 */
+	public List<ParseError> errors() {
+		return errors;
+	}
+	
+	/**
+	 * Check if errors have been collected while parsing
+	 */
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+	
+	/**
+	 * Store a primitive value
+	 * @param ordinal The argument ordinal
+	 * @param kind The kind of primitive, as defined in {@link IPrimitiveArgument}
+	 * @param value The raw bits of the value
+	 */
+	void setBits(int ordinal, byte kind, long value) {
+		values[ordinal] = null;
+		bits[ordinal] = value;
+		kinds[ordinal] = kind;
+		stamps[ordinal] = ++stamp;
+	}
+	
+	/**
+	 * Get the value in a slot, boxing it if it's a primitive
+	 * @param ordinal The slot
+	 * @return The value
+	 */
+	private Object value(int ordinal) {
+		switch(kinds[ordinal]) {
+		case IPrimitiveArgument.INT:
+			return (int) bits[ordinal];
+		case IPrimitiveArgument.LONG:
+			return bits[ordinal];
+		case IPrimitiveArgument.DOUBLE:
+			return Double.longBitsToDouble(bits[ordinal]);
+		default:
+			return values[ordinal];
+		}
+	}
+	
+	/**
+	 * Get the slot that was stored last among the arguments sharing a destination
+	 * @param destination The destination name
+	 * @return The argument ordinal, or -1 if none of them has a value
+	 */
+	private int lastSlot(Object destination) {
+		int[] ordinals = destinations.get(destination);
+		if(ordinals == null)
+			return -1;
+		int last = -1;
+		for(int o : ordinals) {
+			if(kinds[o] != ABSENT && (last < 0 || stamps[o] > stamps[last]))
+				last = o;
+		}
+		return last;
+	}
+	
+	/**
+	 * Get the slot for an argument, and check it belongs to the parser that produced this result
+	 * @param key The argument
+	 * @return The argument ordinal
+	 */
+	int slot(Argument<?> key) {
+		Integer ordinal = ordinals.get(key);
+		if(ordinal == null)
+			throw new IllegalArgumentException("Argument " + key.getNames()[0] + " does not belong to this parser");
+		return ordinal;
+	}
+	
+	/**
+	 * Get the slot for an argument, and check it holds a value
+	 * @param key The argument
+	 * @return The argument ordinal
+	 * @throws NoSuchElementException If the argument has no value
+	 */
+	private int presentSlot(Argument<?> key) {
+		int ordinal = slot(key);
+		if(kinds[ordinal] == ABSENT)
+			throw new NoSuchElementException("No value for argument " + key.getNames()[0]);
+		return ordinal;
+	}
+	
+	/**
+	 * Check if an argument has a value, either parsed or default
+	 * @param key The argument
+	 */
+	public boolean has(Argument<?> key) {
+		return kinds[slot(key)] != ABSENT;
+	}
+	
+	/**
+	 * Get the value of an argument
+	 * @param key The argument
+	 * @return The value, or <code>null</code> if the argument has no value
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> E get(Argument<E> key) {
+		return (E) value(slot(key));
+	}
+	
+	/**
+	 * Get the value of an integer argument
+	 * @param key The argument
+	 * @return The value
+	 * @throws NoSuchElementException If the argument has no value
+	 */
+	public int getInt(Argument<Integer> key) {
+		int ordinal = presentSlot(key);
+		if(kinds[ordinal] == IPrimitiveArgument.INT)
+			return (int) bits[ordinal];
+		return (Integer) values[ordinal];
+	}
+	
+	/**
+	 * Get the value of a long argument
+	 * @param key The argument
+	 * @return The value
+	 * @throws NoSuchElementException If the argument has no value
+	 */
+	public long getLong(Argument<Long> key) {
+		int ordinal = presentSlot(key);
+		if(kinds[ordinal] == IPrimitiveArgument.LONG)
+			return bits[ordinal];
+		return (Long) values[ordinal];
+	}
+	
+	/**
+	 * Get the value of a double argument
+	 * @param key The argument
+	 * @return The value
+	 * @throws NoSuchElementException If the argument has no value
+	 */
+	public double getDouble(Argument<Double> key) {
+		int ordinal = presentSlot(key);
+		if(kinds[ordinal] == IPrimitiveArgument.DOUBLE)
+			return Double.longBitsToDouble(bits[ordinal]);
+		return (Double) values[ordinal];
+	}
+	
+	/**
+	 * Get the value of a boolean argument
+	 * @param key The argument
+	 * @return The value, or <code>false</code> if the argument has no value
+	 */
+	public boolean getBoolean(Argument<Boolean> key) {
+		Object value = values[slot(key)];
+		return value != null && (Boolean) value;
+	}
+	
+	@Override
+	public Object get(Object key) {
+		int last = lastSlot(key);
+		return last < 0 ? null : value(last);
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return lastSlot(key) >= 0;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		if(map == null) {
+			Map<String, Object> m = new HashMap<>();
+			for(String destination : destinations.keySet()) {
+				int last = lastSlot(destination);
+				if(last >= 0)
+					m.put(destination, value(last));
+			}
+			map = m;
+		}
+		return Collections.unmodifiableMap(map).entrySet();
+	}
+}
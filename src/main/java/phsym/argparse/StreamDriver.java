@@ -0,0 +1,335 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Read delimited argument records from a stream, xargs style, and parse each of them
+ * against the same specification. Each token is terminated by the token delimiter (NUL by default),
+ * and each record by the record delimiter (new line by default). Empty records are skipped.
+ * <p>
+ * Reading and tokenizing run on a background thread, feeding a bounded queue of records.
+ * Parsing and handling run on the calling thread, and slow handlers apply backpressure on reading.
+ * @author phsym
+ *
+ */
+public class StreamDriver {
+	
+	private static final List<String> END = Collections.emptyList();
+	
+	private final CompiledParser parser;
+	private char tokenDelimiter = '\0';
+	private char recordDelimiter = '\n';
+	private int queueSize = 1024;
+	private int bufferSize = 64 * 1024;
+	private int maxRecordLength = 1024 * 1024;
+	private int maxRecordTokens = 64 * 1024;
+	
+	/**
+	 * Constructor
+	 * @param parser The parser to parse records with
+	 */
+	public StreamDriver(CompiledParser parser) {
+		this.parser = Objects.requireNonNull(parser, "parser must be non null");
+	}
+	
+	/**
+	 * Set the delimiters
+	 * @param tokenDelimiter The character terminating each token (default is NUL)
+	 * @param recordDelimiter The character terminating each record (default is new line)
+	 * @return this
+	 */
+	public StreamDriver delimiters(char tokenDelimiter, char recordDelimiter) {
+		if(tokenDelimiter == recordDelimiter)
+			throw new IllegalArgumentException("Token and record delimiters must be different");
+		this.tokenDelimiter = tokenDelimiter;
+		this.recordDelimiter = recordDelimiter;
+		return this;
+	}
+	
+	/**
+	 * Set the maximum number of records read ahead and waiting to be parsed
+	 * @param queueSize The queue size (default is 1024)
+	 * @return this
+	 */
+	public StreamDriver queueSize(int queueSize) {
+		if(queueSize < 1)
+			throw new IllegalArgumentException("Queue size must be positive");
+		this.queueSize = queueSize;
+		return this;
+	}
+	
+	/**
+	 * Set the size of the read buffer
+	 * @param bufferSize The size in bytes (default is 64KB)
+	 * @return this
+	 */
+	public StreamDriver bufferSize(int bufferSize) {
+		if(bufferSize < 16)
+			throw new IllegalArgumentException("Buffer size is too small");
+		this.bufferSize = bufferSize;
+		return this;
+	}
+	
+	/**
+	 * Set the maximum length of a record. Reading fails on longer records
+	 * @param maxRecordLength The maximum number of characters (default is 1M)
+	 * @return this
+	 */
+	public StreamDriver maxRecordLength(int maxRecordLength) {
+		this.maxRecordLength = maxRecordLength;
+		return this;
+	}
+	
+	/**
+	 * Set the maximum number of tokens in a record, empty tokens included. Reading fails on records with more tokens
+	 * @param maxRecordTokens The maximum number of tokens (default is 64K)
+	 * @return this
+	 */
+	public StreamDriver maxRecordTokens(int maxRecordTokens) {
+		this.maxRecordTokens = maxRecordTokens;
+		return this;
+	}
+	
+	/**
+	 * Parse all records from a stream. The stream is not closed, even if the handler fails
+	 * @param in The stream to read
+	 * @param handler The handler called with each record outcome, in input order
+	 * @return The number of records handled
+	 * @throws IOException If reading failed
+	 */
+	public int run(InputStream in, Consumer<BatchResult> handler) throws IOException {
+		return run(new StreamChannel(in), handler);
+	}
+	
+	/**
+	 * Parse all records from a channel. If the handler fails, the reading thread is not interrupted, so that
+	 * an interruptible channel is not closed, and stops once its pending read returns
+	 * @param in The channel to read
+	 * @param handler The handler called with each record outcome, in input order
+	 * @return The number of records handled
+	 * @throws IOException If reading failed
+	 */
+	public int run(ReadableByteChannel in, Consumer<BatchResult> handler) throws IOException {
+		BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(queueSize);
+		Reader reader = new Reader(in, queue);
+		Thread thread = new Thread(reader, "argparse-stream-reader");
+		thread.setDaemon(true);
+		thread.start();
+		int count = 0;
+		boolean ended = false;
+		try {
+			while(true) {
+				List<String> args = queue.take();
+				if(args == END)
+					break;
+				handler.accept(parser.parseRecord(count++, args));
+			}
+			ended = true;
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for records", e);
+		} finally {
+			if(!ended)
+				reader.stop();
+		}
+		Throwable error = reader.error;
+		if(error instanceof IOException)
+			throw (IOException) error;
+		if(error instanceof RuntimeException)
+			throw (RuntimeException) error;
+		if(error instanceof Error)
+			throw (Error) error;
+		return count;
+	}
+	
+	/**
+	 * Background task reading and tokenizing records
+	 */
+	private class Reader implements Runnable {
+		
+		private final ReadableByteChannel in;
+		private final BlockingQueue<List<String>> queue;
+		private final StringBuilder token = new StringBuilder();
+		private List<String> record = new ArrayList<>();
+		private int recordLength = 0;
+		private int records = 0;
+		private volatile Throwable error;
+		private volatile boolean stopped = false;
+		
+		Reader(ReadableByteChannel in, BlockingQueue<List<String>> queue) {
+			this.in = in;
+			this.queue = queue;
+		}
+		
+		/**
+		 * Stop reading after the pending read, without interrupting it. Queued records
+		 * are dropped, so that a reader blocked on a full queue resumes
+		 */
+		void stop() {
+			stopped = true;
+			queue.clear();
+		}
+		
+		@Override
+		public void run() {
+			try {
+				read();
+			} catch(InterruptedException e) {
+				// Stopped by the consumer
+			} catch(Throwable e) {
+				error = e;
+			} finally {
+				// Always unblock the consumer, even if reading failed unexpectedly
+				if(!stopped) {
+					try {
+						queue.put(END);
+					} catch (InterruptedException e) {
+						// The consumer has stopped, nobody is waiting for the end marker
+					}
+				}
+			}
+		}
+		
+		private void read() throws IOException, InterruptedException {
+			CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			ByteBuffer bytes = ByteBuffer.allocate(bufferSize);
+			CharBuffer chars = CharBuffer.allocate(bufferSize);
+			boolean eof = false;
+			while(!eof) {
+				if(stopped)
+					throw new InterruptedException();
+				if(in.read(bytes) < 0)
+					eof = true;
+				bytes.flip();
+				CoderResult cr;
+				do {
+					cr = decoder.decode(bytes, chars, eof);
+					if(eof && cr.isUnderflow())
+						cr = decoder.flush(chars);
+					chars.flip();
+					scan(chars);
+					chars.clear();
+				} while(cr.isOverflow());
+				bytes.compact();
+			}
+			endRecord();
+		}
+		
+		private void scan(CharBuffer chars) throws IOException, InterruptedException {
+			while(chars.hasRemaining()) {
+				char c = chars.get();
+				if(c == tokenDelimiter) {
+					addToken();
+				} else if(c == recordDelimiter) {
+					endRecord();
+				} else {
+					if(++recordLength > maxRecordLength)
+						throw new IOException("Record " + records + " is longer than " + maxRecordLength + " characters");
+					token.append(c);
+				}
+			}
+		}
+		
+		private void addToken() throws IOException {
+			if(record.size() >= maxRecordTokens)
+				throw new IOException("Record " + records + " has more than " + maxRecordTokens + " tokens");
+			record.add(token.toString());
+			token.setLength(0);
+		}
+		
+		private void endRecord() throws IOException, InterruptedException {
+			if(token.length() > 0)
+				addToken();
+			if(!record.isEmpty()) {
+				if(stopped)
+					throw new InterruptedException();
+				queue.put(record);
+				record = new ArrayList<>();
+				records++;
+			}
+			recordLength = 0;
+		}
+	}
+	
+	/**
+	 * Channel reading from a stream. Unlike {@link Channels#newChannel(InputStream)}, it is not
+	 * interruptible, so the stream is never closed by interrupting the reading thread
+	 */
+	private static final class StreamChannel implements ReadableByteChannel {
+		
+		private final InputStream in;
+		private byte[] buffer = new byte[0];
+		
+		StreamChannel(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+			// The stream belongs to the caller
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			int len = dst.remaining();
+			if(buffer.length < len)
+				buffer = new byte[len];
+			int n = in.read(buffer, 0, len);
+			if(n > 0)
+				dst.put(buffer, 0, n);
+			return n;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declare a field as a command line option. For each concrete class having such fields, declared or inherited,
+ * the {@link OptionProcessor} generates at compile time a <code>&lt;Class&gt;Parser</code> class, in the same
+ * package, which parses arguments directly into the fields. The processor must be enabled explicitly.
+ * <p>
+ * Supported field types are <code>boolean</code>, <code>int</code>, <code>long</code>, <code>double</code>,
+ * their boxed types, {@link String} and {@link java.io.File}. Annotated fields must not be private, final or static,
+ * and fields inherited from another package must be public. The class must have a non private no-arg constructor.
+ * <p>
+ * Options only support names, help, required, default values and choices. Constraints such as bounds, patterns
+ * or assertions, actions, and features of {@link phsym.argparse.ArgParse} such as argument files, are not available
+ * in generated parsers
+ * @author phsym
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Option {
+	
+	/**
+	 * @return The option names (eg: "-p", "--port")
+	 */
+	String[] value();
+	
+	/**
+	 * @return The help string
+	 */
+	String help() default "";
+	
+	/**
+	 * @return <code>true</code> if the option must be provided
+	 */
+	boolean required() default false;
+	
+	/**
+	 * @return The value to use when the option is not provided. Empty means the field is left untouched
+	 */
+	String defaultValue() default "";
+	
+	/**
+	 * @return The accepted values. Empty means any value is accepted
+	 */
+	String[] choices() default {};
+}
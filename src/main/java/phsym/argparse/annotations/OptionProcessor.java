@@ -0,0 +1,603 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.annotations;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.impl.BoolArgument;
+import phsym.argparse.arguments.impl.DoubleArgument;
+import phsym.argparse.arguments.impl.FileArgument;
+import phsym.argparse.arguments.impl.IntArgument;
+import phsym.argparse.arguments.impl.LongArgument;
+import phsym.argparse.arguments.impl.StringArgument;
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Annotation processor generating a dedicated parser for each concrete class having {@link Option} fields,
+ * declared or inherited. The generated parser switches on argument names, converts values inline with the same
+ * rules and error messages as the matching {@link phsym.argparse.arguments.Argument} classes, and assigns fields
+ * directly, without reflection nor intermediate result map.
+ * <p>
+ * Default values, choices and names are checked at compile time.
+ * <p>
+ * The processor is not registered as a service, so it only runs when enabled explicitly, for instance with
+ * <code>javac -processor phsym.argparse.annotations.OptionProcessor</code>, or in the
+ * <code>annotationProcessors</code> setting of the maven compiler plugin
+ * @author phsym
+ *
+ */
+@SupportedAnnotationTypes("*")
+public class OptionProcessor extends AbstractProcessor {
+	
+	private final Set<List<Object>> reported = new HashSet<>();
+	
+	/**
+	 * The field types a generated parser can convert values to
+	 */
+	private enum Kind {
+		BOOL, INT, LONG, DOUBLE, STRING, FILE
+	}
+	
+	/**
+	 * An annotated field, checked and ready to be generated
+	 */
+	private static final class Field {
+		final VariableElement element;
+		final Option option;
+		final Kind kind;
+		final Object defaultValue;
+		
+		Field(VariableElement element, Option option, Kind kind, Object defaultValue) {
+			this.element = element;
+			this.option = option;
+			this.kind = kind;
+			this.defaultValue = defaultValue;
+		}
+		
+		String name() {
+			return option.value()[0];
+		}
+	}
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for(TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements()))
+			process(type);
+		// Other processors may handle the same annotations
+		return false;
+	}
+	
+	/**
+	 * Generate the parser of a class if it has option fields, then of its member classes
+	 * @param type The class
+	 */
+	private void process(TypeElement type) {
+		List<VariableElement> declared = new ArrayList<>();
+		for(VariableElement e : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			if(e.getAnnotation(Option.class) != null)
+				declared.add(e);
+		}
+		if(type.getKind() != ElementKind.CLASS) {
+			if(!declared.isEmpty())
+				error(type, "@Option fields must be declared in a class");
+		} else if(type.getModifiers().contains(Modifier.ABSTRACT)) {
+			// Fields are checked here, and generated in the parsers of concrete subclasses
+			check(type, declared, false);
+		} else {
+			List<VariableElement> elements = inherited(type);
+			elements.addAll(declared);
+			if(!elements.isEmpty()) {
+				List<Field> fields = check(type, elements, true);
+				if(fields != null)
+					generate(type, fields);
+			}
+		}
+		for(TypeElement member : ElementFilter.typesIn(type.getEnclosedElements()))
+			process(member);
+	}
+	
+	/**
+	 * Get the option fields a class inherits, from its farthest superclass down
+	 * @param type The class
+	 * @return The inherited option fields
+	 */
+	private static List<VariableElement> inherited(TypeElement type) {
+		List<TypeElement> supers = new ArrayList<>();
+		for(TypeMirror t = type.getSuperclass(); t instanceof DeclaredType; ) {
+			TypeElement s = (TypeElement) ((DeclaredType) t).asElement();
+			supers.add(0, s);
+			t = s.getSuperclass();
+		}
+		List<VariableElement> fields = new ArrayList<>();
+		for(TypeElement s : supers) {
+			for(VariableElement e : ElementFilter.fieldsIn(s.getEnclosedElements())) {
+				if(e.getAnnotation(Option.class) != null)
+					fields.add(e);
+			}
+		}
+		return fields;
+	}
+	
+	/**
+	 * Report a compilation error, once per element. Inherited fields are checked again with each subclass
+	 * @param e The element in error
+	 * @param msg The error message
+	 */
+	private void error(Element e, String msg) {
+		if(reported.add(Arrays.asList(e, msg)))
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, e);
+	}
+	
+	/**
+	 * Check a class and its option fields
+	 * @param owner The class
+	 * @param elements The option fields, inherited ones first
+	 * @param generated <code>true</code> if a parser is generated for this class, <code>false</code> to only check fields
+	 * @return The checked fields, or <code>null</code> if errors have been reported
+	 */
+	private List<Field> check(TypeElement owner, List<VariableElement> elements, boolean generated) {
+		boolean ok = generated ? checkOwner(owner) : true;
+		String pkg = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+		List<Field> fields = new ArrayList<>(elements.size());
+		Set<String> names = new HashSet<>();
+		Set<String> fieldNames = new HashSet<>();
+		for(VariableElement e : elements) {
+			Option option = e.getAnnotation(Option.class);
+			Set<Modifier> modifiers = e.getModifiers();
+			if(modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) {
+				error(e, "@Option fields must not be private, final or static");
+				ok = false;
+				continue;
+			}
+			String declaring = processingEnv.getElementUtils().getPackageOf(e).getQualifiedName().toString();
+			if(!declaring.equals(pkg) && !modifiers.contains(Modifier.PUBLIC)) {
+				error(generated ? owner : e, "@Option field " + e.getSimpleName() + " is inherited from another package, and must be public");
+				ok = false;
+				continue;
+			}
+			if(!fieldNames.add(e.getSimpleName().toString())) {
+				error(e, "@Option field " + e.getSimpleName() + " hides an inherited @Option field");
+				ok = false;
+				continue;
+			}
+			Kind kind = kindOf(e.asType());
+			if(kind == null) {
+				error(e, "Unsupported @Option field type " + e.asType());
+				ok = false;
+				continue;
+			}
+			if(option.value().length == 0) {
+				error(e, "@Option needs at least 1 name");
+				ok = false;
+				continue;
+			}
+			for(String n : option.value()) {
+				if(!Argument.isValidName(n)) {
+					error(e, "Invalid argument name : " + n);
+					ok = false;
+				}
+				if(!names.add(n)) {
+					error(e, "Argument " + n + " is already registered");
+					ok = false;
+				}
+			}
+			if(kind == Kind.BOOL && option.choices().length > 0) {
+				error(e, "Boolean options can't have choices");
+				ok = false;
+				continue;
+			}
+			String def = option.defaultValue();
+			Object value = null;
+			if(!def.isEmpty()) {
+				if(option.choices().length > 0 && !Arrays.asList(option.choices()).contains(def)) {
+					error(e, "Default value " + def + " is not one of the choices");
+					ok = false;
+					continue;
+				}
+				try {
+					value = parseDefault(option.value()[0], kind, def);
+				} catch(ArgParseException ex) {
+					error(e, "Invalid default value : " + ex.getMessage());
+					ok = false;
+					continue;
+				}
+			}
+			fields.add(new Field(e, option, kind, value));
+		}
+		return ok ? fields : null;
+	}
+	
+	/**
+	 * Check that a parser can be generated for a class
+	 * @param owner The class
+	 * @return <code>true</code> if the class is valid, <code>false</code> if errors have been reported
+	 */
+	private boolean checkOwner(TypeElement owner) {
+		for(Element o = owner; o instanceof TypeElement; o = o.getEnclosingElement()) {
+			TypeElement t = (TypeElement) o;
+			if(t.getModifiers().contains(Modifier.PRIVATE)
+					|| t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS
+					|| (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC))) {
+				error(owner, "Class " + owner.getQualifiedName() + " must be accessible from its package and not an inner class");
+				return false;
+			}
+		}
+		boolean constructor = false;
+		for(ExecutableElement c : ElementFilter.constructorsIn(owner.getEnclosedElements()))
+			constructor |= c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE);
+		if(!constructor) {
+			error(owner, "Class " + owner.getQualifiedName() + " must have a non private no-arg constructor");
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Get the kind of value a field holds
+	 * @param type The field type
+	 * @return The kind of value, or <code>null</code> if the type is not supported
+	 */
+	private static Kind kindOf(TypeMirror type) {
+		switch(type.getKind()) {
+			case BOOLEAN:
+				return Kind.BOOL;
+			case INT:
+				return Kind.INT;
+			case LONG:
+				return Kind.LONG;
+			case DOUBLE:
+				return Kind.DOUBLE;
+			case DECLARED:
+				switch(((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString()) {
+					case "java.lang.Boolean":
+						return Kind.BOOL;
+					case "java.lang.Integer":
+						return Kind.INT;
+					case "java.lang.Long":
+						return Kind.LONG;
+					case "java.lang.Double":
+						return Kind.DOUBLE;
+					case "java.lang.String":
+						return Kind.STRING;
+					case "java.io.File":
+						return Kind.FILE;
+					default:
+						return null;
+				}
+			default:
+				return null;
+		}
+	}
+	
+	/**
+	 * Parse a default value
+	 * @param name The option name
+	 * @param kind The kind of value
+	 * @param value The default value
+	 * @return The parsed value
+	 * @throws ArgParseException If the value is not valid for this kind
+	 */
+	private static Object parseDefault(String name, Kind kind, String value) throws ArgParseException {
+		switch(kind) {
+			case BOOL:
+				if(!value.equals("true") && !value.equals("false"))
+					throw new ArgParseException(value + " is not a boolean");
+				return Boolean.valueOf(value);
+			case INT:
+				return IntArgument.parseValue(name, value);
+			case LONG:
+				return LongArgument.parseValue(name, value);
+			case DOUBLE:
+				return DoubleArgument.parseValue(name, value);
+			case FILE:
+				return new File(value);
+			default:
+				return value;
+		}
+	}
+	
+	/**
+	 * Convert a default value to a java expression
+	 * @param f The field
+	 * @return The java expression
+	 */
+	private static String defaultLiteral(Field f) {
+		switch(f.kind) {
+			case LONG:
+				return f.defaultValue + "L";
+			case DOUBLE:
+				double d = (Double) f.defaultValue;
+				if(Double.isNaN(d))
+					return "Double.NaN";
+				if(Double.isInfinite(d))
+					return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+				return Double.toString(d);
+			case FILE:
+				return "new java.io.File(" + literal(f.defaultValue.toString()) + ")";
+			case STRING:
+				return literal(f.defaultValue.toString());
+			default:
+				return f.defaultValue.toString();
+		}
+	}
+	
+	/**
+	 * Render the help line of an option, the same way the matching argument would
+	 * @param f The field
+	 * @return The help line
+	 */
+	@SuppressWarnings("unchecked")
+	private static String helpLine(Field f) {
+		Argument<?> arg;
+		switch(f.kind) {
+			case BOOL:
+				arg = new BoolArgument();
+				break;
+			case INT:
+				arg = new IntArgument();
+				break;
+			case LONG:
+				arg = new LongArgument();
+				break;
+			case DOUBLE:
+				arg = new DoubleArgument();
+				break;
+			case FILE:
+				arg = new FileArgument();
+				break;
+			default:
+				arg = new StringArgument();
+		}
+		String[] names = f.option.value();
+		arg.names(names[0], Arrays.copyOfRange(names, 1, names.length))
+			.help(f.option.help());
+		if(f.option.choices().length > 0)
+			arg.choices(f.option.choices());
+		if(f.defaultValue != null)
+			((Argument<Object>) arg).setDefault(f.defaultValue);
+		StringBuilder sb = new StringBuilder();
+		arg.appendHelp(sb);
+		return sb.toString();
+	}
+	
+	/**
+	 * Quote a string as a java string literal
+	 * @param s The string to quote
+	 * @return The java literal
+	 */
+	private static String literal(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch(c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if(c < 0x20 || c > 0x7e)
+						sb.append(String.format("\\u%04x", (int) c));
+					else
+						sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+	
+	/**
+	 * Get the java expression converting the <code>value</code> variable for a field
+	 * @param f The field
+	 * @return The java expression
+	 */
+	private static String conversion(Field f) {
+		String name = literal(f.name());
+		switch(f.kind) {
+			case INT:
+				return "phsym.argparse.arguments.impl.IntArgument.parseValue(" + name + ", value)";
+			case LONG:
+				return "phsym.argparse.arguments.impl.LongArgument.parseValue(" + name + ", value)";
+			case DOUBLE:
+				return "phsym.argparse.arguments.impl.DoubleArgument.parseValue(" + name + ", value)";
+			case FILE:
+				return "phsym.argparse.arguments.impl.FileArgument.parseValue(" + name + ", value, false, false)";
+			default:
+				return "value";
+		}
+	}
+	
+	/**
+	 * Generate the parser class for an annotated class
+	 * @param owner The annotated class
+	 * @param fields The checked fields
+	 */
+	private void generate(TypeElement owner, List<Field> fields) {
+		String pkg = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+		String simpleName = owner.getSimpleName().toString();
+		for(Element e = owner.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement())
+			simpleName = e.getSimpleName() + "_" + simpleName;
+		simpleName += "Parser";
+		String target = owner.getQualifiedName().toString();
+		List<String> helpLines = new ArrayList<>(fields.size());
+		for(Field f : fields)
+			helpLines.add(helpLine(f));
+		
+		StringBuilder src = new StringBuilder();
+		if(!pkg.isEmpty())
+			src.append("package ").append(pkg).append(";\n\n");
+		src.append("/**\n")
+			.append(" * Parser for {@link ").append(target).append("}, generated from its {@link phsym.argparse.annotations.Option} fields\n")
+			.append(" */\n")
+			.append("public final class ").append(simpleName).append(" {\n");
+		for(int i = 0; i < fields.size(); i++) {
+			String[] choices = fields.get(i).option.choices();
+			if(choices.length == 0)
+				continue;
+			src.append("\n\tprivate static final java.util.List<String> CHOICES_").append(i)
+				.append(" = java.util.Collections.unmodifiableList(java.util.Arrays.asList(");
+			for(int c = 0; c < choices.length; c++)
+				src.append(c > 0 ? ", " : "").append(literal(choices[c]));
+			src.append("));\n");
+		}
+		src.append("\n\t/**\n")
+			.append("\t * Help text of the options, one per line\n")
+			.append("\t */\n")
+			.append("\tpublic static final String HELP = ");
+		for(int i = 0; i < fields.size(); i++) {
+			if(i > 0)
+				src.append("\n\t\t+ System.lineSeparator() + ");
+			src.append(literal(helpLines.get(i)));
+		}
+		src.append(";\n");
+		src.append("\n\tprivate ").append(simpleName).append("() {\n\t}\n\n");
+		
+		src.append("\t/**\n")
+			.append("\t * Parse arguments into a new instance\n")
+			.append("\t * @param args Arguments to parse\n")
+			.append("\t * @return The parsed options\n")
+			.append("\t * @throws phsym.argparse.exceptions.ArgParseException Argument parsing failed\n")
+			.append("\t */\n")
+			.append("\tpublic static ").append(target).append(" parse(String[] args) throws phsym.argparse.exceptions.ArgParseException {\n")
+			.append("\t\treturn parse(args, new ").append(target).append("());\n")
+			.append("\t}\n\n");
+		
+		src.append("\t/**\n")
+			.append("\t * Parse arguments into an existing instance\n")
+			.append("\t * @param args Arguments to parse\n")
+			.append("\t * @param target The instance to fill\n")
+			.append("\t * @return target\n")
+			.append("\t * @throws phsym.argparse.exceptions.ArgParseException Argument parsing failed\n")
+			.append("\t */\n")
+			.append("\tpublic static ").append(target).append(" parse(String[] args, ").append(target)
+			.append(" target) throws phsym.argparse.exceptions.ArgParseException {\n");
+		for(int i = 0; i < fields.size(); i++)
+			src.append("\t\tboolean seen").append(i).append(" = false;\n");
+		src.append("\t\tfor(int i = 0; i < args.length; i++) {\n")
+			.append("\t\t\tString name = args[i];\n")
+			.append("\t\t\tswitch(name) {\n");
+		for(int i = 0; i < fields.size(); i++) {
+			Field f = fields.get(i);
+			String field = "target." + f.element.getSimpleName();
+			for(String n : f.option.value())
+				src.append("\t\t\t\tcase ").append(literal(n)).append(":\n");
+			src.append("\t\t\t\t{\n");
+			if(f.kind == Kind.BOOL)
+				src.append("\t\t\t\t\t").append(field).append(" = true;\n");
+			else {
+				src.append("\t\t\t\t\tif(++i == args.length)\n")
+					.append("\t\t\t\t\t\tthrow new phsym.argparse.exceptions.ValueRequiredException(").append(literal(f.name())).append(");\n")
+					.append("\t\t\t\t\tString value = args[i];\n");
+				if(f.option.choices().length > 0) {
+					src.append("\t\t\t\t\tswitch(value) {\n");
+					for(String c : new LinkedHashSet<>(Arrays.asList(f.option.choices())))
+						src.append("\t\t\t\t\t\tcase ").append(literal(c)).append(":\n");
+					src.append("\t\t\t\t\t\t\tbreak;\n")
+						.append("\t\t\t\t\t\tdefault:\n")
+						.append("\t\t\t\t\t\t\tthrow new phsym.argparse.exceptions.InvalidValueException(")
+						.append(literal(f.name())).append(", value, CHOICES_").append(i).append(");\n")
+						.append("\t\t\t\t\t}\n");
+				}
+				src.append("\t\t\t\t\t").append(field).append(" = ").append(conversion(f)).append(";\n");
+			}
+			src.append("\t\t\t\t\tseen").append(i).append(" = true;\n")
+				.append("\t\t\t\t\tbreak;\n")
+				.append("\t\t\t\t}\n");
+		}
+		src.append("\t\t\t\tdefault:\n")
+			.append("\t\t\t\t\tthrow new phsym.argparse.exceptions.UnknownArgumentException(name);\n")
+			.append("\t\t\t}\n")
+			.append("\t\t}\n");
+		for(int i = 0; i < fields.size(); i++) {
+			Field f = fields.get(i);
+			if(f.defaultValue != null)
+				src.append("\t\tif(!seen").append(i).append(")\n")
+					.append("\t\t\ttarget.").append(f.element.getSimpleName()).append(" = ").append(defaultLiteral(f)).append(";\n");
+		}
+		for(int i = 0; i < fields.size(); i++) {
+			Field f = fields.get(i);
+			if(f.option.required())
+				src.append("\t\tif(!seen").append(i).append(")\n")
+					.append("\t\t\tthrow new phsym.argparse.exceptions.MissingArgumentException(").append(literal(f.name())).append(");\n");
+		}
+		src.append("\t\treturn target;\n")
+			.append("\t}\n")
+			.append("}\n");
+		
+		Element[] origins = new Element[fields.size() + 1];
+		origins[0] = owner;
+		for(int i = 0; i < fields.size(); i++)
+			origins[i + 1] = fields.get(i).element;
+		try(Writer w = processingEnv.getFiler().createSourceFile(pkg.isEmpty() ? simpleName : pkg + "." + simpleName, origins).openWriter()) {
+			w.write(src.toString());
+		} catch(IOException e) {
+			error(owner, "Could not generate " + simpleName + " : " + e.getMessage());
+		}
+	}
+}
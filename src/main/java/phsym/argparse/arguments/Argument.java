@@ -28,12 +28,23 @@ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
 OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package phsym.argparse.arguments;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
 
 import phsym.argparse.ArgParse;
 import phsym.argparse.exceptions.ArgParseException;
@@ -49,17 +60,23 @@ import phsym.argparse.exceptions.ValueRequiredException;
  */
 public abstract class Argument<E> implements IHelpString {
 	
-	private static Pattern validArgName = Pattern.compile("--?[a-zA-Z0-9]+(-?[a-zA-Z0-9]*)*");
 
 	private String[] names;
 	private String description;
 	private Consumer<E> action;
 	private Predicate<E> validation;
-	private boolean processed = false;
+	private int modCount = 0;
+	private volatile boolean processed = false;
 	private boolean required = false;
+	private boolean ioBound = false;
+	private boolean eager = false;
 	private E defaultValue;
-	private List<String> choices;
+	private Set<String> choices;
+	private List<String> choiceList;
+	private ChoiceSource choiceSource;
 	private String destination;
+	private String defaultDestination;
+	private List<Argument<?>> after;
 	
 	/**
 	 * Default empty constructor
@@ -69,19 +86,47 @@ public abstract class Argument<E> implements IHelpString {
 	}
 	
 	/**
-	 * Check if this argument has already been parsed
+	 * @return A counter incremented each time a setting shown in help or compiled into a parser changes
 	 */
+	public int getModCount() {
+		return modCount;
+	}
+	
+	/**
+	 * Record that a setting has changed, so that cached help texts are rendered again and compiled parsers rebuilt.
+	 * Subclasses must call it from their setters, at least from those that change {@link #typeDesc()}
+	 */
+	protected void changed() {
+		modCount++;
+	}
+	
+	/**
+	 * Check if this argument has been parsed, or got its default value, in the last parsing
+	 * @deprecated Arguments can be shared by concurrent parsings, use {@link phsym.argparse.ParseResult#has(Argument)} instead
+	 */
+	@Deprecated
 	public boolean hasBeenProcessed() {
 		return processed;
 	}
 	
 	/**
-	 * Check if this argument has still not been parsed
+	 * Check if this argument has still not been parsed, nor got its default value, in the last parsing
+	 * @deprecated Arguments can be shared by concurrent parsings, use {@link phsym.argparse.ParseResult#has(Argument)} instead
 	 */
+	@Deprecated
 	public boolean hasNotBeenProcessed() {
 		return !processed;
 	}
 	
+	/**
+	 * Record whether the last parsing processed this argument, as reported by {@link #hasBeenProcessed()}.
+	 * Called by parsers once a parsing is complete
+	 * @param processed <code>true</code> if this argument has a value in the last parsing result
+	 */
+	public void setProcessed(boolean processed) {
+		this.processed = processed;
+	}
+	
 	/**
 	 * Check if this arguent has the given name
 	 */
@@ -114,13 +159,44 @@ public abstract class Argument<E> implements IHelpString {
 		return names;
 	}
 	
+	/**
+	 * Check if a name is a valid argument name : one or two dashes, an alphanumeric character, then any
+	 * alphanumeric characters or dashes. It accepts the same names as the regular expression
+	 * <code>--?[a-zA-Z0-9]+(-?[a-zA-Z0-9]*)*</code>, in a single pass, so validation time is linear
+	 * with the name length, even for names coming from untrusted sources
+	 * @param name The name to check
+	 * @return <code>true</code> if the name is valid
+	 */
+	public static boolean isValidName(String name) {
+		int length = name.length();
+		if(length < 2 || name.charAt(0) != '-')
+			return false;
+		int i = name.charAt(1) == '-' ? 2 : 1;
+		if(i == length || !isAlphanumeric(name.charAt(i)))
+			return false;
+		for(i++; i < length; i++) {
+			char c = name.charAt(i);
+			if(c != '-' && !isAlphanumeric(c))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * @param c The character to check
+	 * @return <code>true</code> if the character is an ASCII letter or digit
+	 */
+	private static boolean isAlphanumeric(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+	}
+	
 	/**
 	 * Check if the argument name is valid
 	 * @param name The name to verify
 	 * @throws InvalidArgumentNameException if the argument name is invalid
 	 */
 	private void validateName(String name) throws InvalidArgumentNameException {
-		if(!validArgName.matcher(name).matches())
+		if(!isValidName(name))
 			throw new InvalidArgumentNameException("Invalid argument name : " + name);
 	}
 	
@@ -139,6 +215,8 @@ public abstract class Argument<E> implements IHelpString {
 			validateName(names[i]);
 			this.names[i+1] = names[i];
 		}
+		defaultDestination = firstName.substring(firstName.startsWith("--") ? 2 : 1);
+		changed();
 		return this;
 	}
 	
@@ -149,6 +227,7 @@ public abstract class Argument<E> implements IHelpString {
 	 */
 	public Argument<E> dest(String dest) {
 		this.destination = dest;
+		changed();
 		return this;
 	}
 	
@@ -160,7 +239,7 @@ public abstract class Argument<E> implements IHelpString {
 		if(destination != null)
 			return destination;
 		else
-			return names[0].replaceFirst("--?", "");
+			return defaultDestination;
 	}
 	
 	/**
@@ -177,18 +256,45 @@ public abstract class Argument<E> implements IHelpString {
 	 */
 	public Argument<E> help(String description) {
 		this.description = description;
+		changed();
 		return this;
 	}
 	
 	/**
-	 * Limit possible argument values to multiple choice
+	 * Limit possible argument values to multiple choice. Values are checked against a hash set,
+	 * and listed in the given order in help
 	 * @param choices The choices to limit to
 	 * @return this
 	 */
 	public Argument<E> choices(String ... choices) {
 		if(!this.requireValue())
 			throw new RuntimeException("Argument " + this.names[0] + " can't have choices since no value is required");
-		this.choices = Arrays.asList(choices);
+		setChoices(choices);
+		changed();
+		return this;
+	}
+	
+	/**
+	 * Store choices as a hash set for lookups, and as a list for error messages
+	 * @param choices The choices
+	 */
+	private void setChoices(String[] choices) {
+		Set<String> set = new LinkedHashSet<>(Arrays.asList(choices));
+		this.choices = Collections.unmodifiableSet(set);
+		this.choiceList = Collections.unmodifiableList(new ArrayList<>(set));
+	}
+	
+	/**
+	 * Limit possible argument values to an external set of choices, such as a {@link SortedFileChoices}.
+	 * Values must be in both sets when {@link #choices(String...)} is also used
+	 * @param source The choices to limit to
+	 * @return this
+	 */
+	public Argument<E> choices(ChoiceSource source) {
+		if(!this.requireValue())
+			throw new RuntimeException("Argument " + this.names[0] + " can't have choices since no value is required");
+		this.choiceSource = source;
+		changed();
 		return this;
 	}
 	
@@ -208,9 +314,17 @@ public abstract class Argument<E> implements IHelpString {
 	public Argument<E> setDefault(E defaultValue) {
 		//TODO: Check against constraints if there are some
 		this.defaultValue = defaultValue;
+		changed();
 		return this;
 	}
 	
+	/**
+	 * @return The default value representation printed in help
+	 */
+	protected String defaultString() {
+		return String.valueOf(defaultValue);
+	}
+	
 	/**
 	 * Check either this argument has a default value or not
 	 */
@@ -225,6 +339,7 @@ public abstract class Argument<E> implements IHelpString {
 	 */
 	public Argument<E> required(boolean required) {
 		this.required = required;
+		changed();
 		return this;
 	}
 	
@@ -235,6 +350,44 @@ public abstract class Argument<E> implements IHelpString {
 		return required;
 	}
 	
+	/**
+	 * Declare that validating values of this argument waits on I/O (eg: assertions hitting the
+	 * file system or a remote registry), so that it can run concurrently with other validations
+	 * @param ioBound <code>true</code> if validation is I/O bound
+	 * @return this
+	 * @see ArgParse#parallelValidation(java.util.concurrent.Executor)
+	 */
+	public Argument<E> ioBound(boolean ioBound) {
+		this.ioBound = ioBound;
+		return this;
+	}
+	
+	/**
+	 * Check if validating values of this argument is I/O bound. Set with {@link #ioBound(boolean)}
+	 */
+	public boolean isIoBound() {
+		return ioBound;
+	}
+	
+	/**
+	 * Run consumers and actions of this argument as soon as it is parsed, even when actions are deferred,
+	 * so that they run before required arguments are checked. Used by the help and version arguments
+	 * @param eager <code>true</code> to never defer actions of this argument
+	 * @return this
+	 * @see ArgParse#deferActions()
+	 */
+	public Argument<E> eager(boolean eager) {
+		this.eager = eager;
+		return this;
+	}
+	
+	/**
+	 * Check if consumers and actions of this argument are never deferred. Set with {@link #eager(boolean)}
+	 */
+	public boolean isEager() {
+		return eager;
+	}
+	
 	/**
 	 * Add an assertion predicate which will be checked after argument value has been parsed
 	 * @param predicate A predicate that checks the parsed value
@@ -267,13 +420,35 @@ public abstract class Argument<E> implements IHelpString {
 	 * @return this
 	 */
 	public Argument<E> action(Runnable action) {
-		consume((x) -> action.run());
-		return this;
+		return consume(new RunAction<>(action));
+	}
+	
+	/**
+	 * A consumer running an action, ignoring the value
+	 */
+	private static final class RunAction<E> implements Consumer<E> {
+		private final Runnable action;
+		
+		RunAction(Runnable action) {
+			this.action = action;
+		}
+
+		@Override
+		public void accept(E value) {
+			action.run();
+		}
 	}
 
 	@Override
 	public String helpStr() {
-		StringBuilder help = new StringBuilder("    ");
+		StringBuilder help = new StringBuilder();
+		appendHelp(help);
+		return help.toString();
+	}
+	
+	@Override
+	public void appendHelp(StringBuilder help) {
+		help.append("    ");
 		for(int i = 0; i < names.length; i++) {
 			help.append(names[i]);
 			if(i < names.length-1)
@@ -281,8 +456,12 @@ public abstract class Argument<E> implements IHelpString {
 		}
 		help.append("\t");
 		if(requireValue()) {
-			if(choices == null || choices.size() == 0)
-				help.append("<").append(typeDesc()).append(">");
+			if(choices == null || choices.size() == 0) {
+				help.append("<").append(typeDesc());
+				if(choiceSource != null)
+					help.append(" in ").append(choiceSource.describe());
+				help.append(">");
+			}
 			else {
 				help.append("<");
 				Iterator<String> it = choices.iterator();
@@ -297,10 +476,45 @@ public abstract class Argument<E> implements IHelpString {
 			help.append("\t");
 		help.append("\t").append(description);
 		if(hasDefault())
-			help.append(" (default: ").append(defaultValue).append(")");
-		return help.toString();
+			help.append(" (default: ").append(defaultString()).append(")");
 	}
 
+	/**
+	 * Check if consumers or actions have been added to this argument
+	 */
+	public boolean hasAction() {
+		return action != null;
+	}
+	
+	/**
+	 * Check if assertions have been added with {@link #andAssert(Predicate)}
+	 */
+	protected boolean hasAssertion() {
+		return validation != null;
+	}
+	
+	/**
+	 * Check the assertions added with {@link #andAssert(Predicate)}
+	 * @param value The value to check
+	 * @throws InvalidValueException If the value does not pass checks
+	 */
+	protected void check(E value) throws InvalidValueException {
+		if(value != null && validation != null && !validation.test(value))
+			throw new InvalidValueException(names[0], value.toString());
+	}
+	
+	/**
+	 * Check the raw value against the choices set with {@link #choices(String...)} and {@link #choices(ChoiceSource)}
+	 * @param value The value to check
+	 * @throws InvalidValueException If the value is not one of the choices
+	 */
+	protected void checkChoice(String value) throws InvalidValueException {
+		if(choices != null && choices.size() > 0 && !choices.contains(value))
+			throw new InvalidValueException(names[0], value, choiceList);
+		if(choiceSource != null && !choiceSource.contains(value))
+			throw new InvalidValueException(names[0], value, " is not one of the choices in " + choiceSource.describe());
+	}
+	
 	/**
 	 * Check assertions, then call consumers and actions, passing the given value
 	 * in arguments
@@ -309,11 +523,9 @@ public abstract class Argument<E> implements IHelpString {
 	 * @throws InvalidValueException If the value does not pass checks
 	 */
 	private E callDirect(E value) throws InvalidValueException {
-		if(value != null && validation != null && !validation.test(value))
-			throw new InvalidValueException(names[0], value.toString());
+		check(value);
 		if(action != null)
 			action.accept(value);
-		processed = true;
 		return value;
 	}
 	
@@ -335,11 +547,92 @@ public abstract class Argument<E> implements IHelpString {
 	public E process(String value) throws ArgParseException {
 		if(value == null && requireValue())
 			throw new ValueRequiredException(this);
-		if(choices != null && choices.size() > 0 && !choices.contains(value))
-			throw new InvalidValueException(names[0], value, this.choices);
+		checkChoice(value);
 		return callDirect(parse(value));
 	}
 	
+	/**
+	 * Parse and check a value, without calling consumers and actions. They must then be called
+	 * with {@link #dispatch(Object)}
+	 * @param value The string value to parse, or <code>null</code> for a flag argument
+	 * @return The parsed value
+	 * @throws ArgParseException In case of parsing failed
+	 */
+	public E validate(String value) throws ArgParseException {
+		if(value == null && requireValue())
+			throw new ValueRequiredException(this);
+		checkChoice(value);
+		E parsed = parse(value);
+		check(parsed);
+		return parsed;
+	}
+	
+	/**
+	 * Check the default value, without calling consumers and actions
+	 * @return The default value, or <code>null</code> if it does not pass checks
+	 */
+	public E validateDefault() {
+		try {
+			check(defaultValue);
+			return defaultValue;
+		} catch (InvalidValueException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Call consumers and actions with a value returned by {@link #validate(String)} or {@link #validateDefault()}
+	 * @param value The checked value
+	 */
+	@SuppressWarnings("unchecked")
+	public void dispatch(Object value) {
+		if(action != null)
+			action.accept((E) value);
+	}
+	
+	/**
+	 * Declare that, when actions are deferred, consumers and actions of this argument must run
+	 * once those of the given arguments have completed
+	 * @param others The arguments to run after
+	 * @return this
+	 * @throws IllegalArgumentException If the ordering is cyclic
+	 * @see ArgParse#deferActions(java.util.concurrent.Executor)
+	 */
+	public Argument<E> after(Argument<?> ... others) {
+		for(Argument<?> o : others) {
+			if(o == this || o.runsAfter(this))
+				throw new IllegalArgumentException("Cyclic action ordering between " + names[0] + " and " + o.names[0]);
+			if(after == null)
+				after = new ArrayList<>();
+			after.add(o);
+		}
+		return this;
+	}
+	
+	/**
+	 * Check if actions of this argument must run after those of another one, directly or not
+	 * @param other The other argument
+	 */
+	private boolean runsAfter(Argument<?> other) {
+		if(after != null) {
+			for(Argument<?> a : after) {
+				if(a == other || a.runsAfter(other))
+					return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return The arguments set with {@link #after(Argument...)}
+	 */
+	public List<Argument<?>> getAfter() {
+		if(after == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(after);
+	}
+	
 	/**
 	 * Process with the default value
 	 * @return The resulting default value
@@ -353,6 +646,201 @@ public abstract class Argument<E> implements IHelpString {
 		}
 	}
 	
+	/**
+	 * Write this argument specification into a snapshot. Subclasses having settings must override it,
+	 * calling this implementation first, and read their settings back in {@link #readSpec(DataInput)}.
+	 * Consumers and actions are not written
+	 * @param out The snapshot output
+	 * @throws IOException If writing failed
+	 * @throws NotSerializableException If the argument has assertions, or a default value that can't be written
+	 * @see ArgParse#writeSnapshot(java.io.OutputStream)
+	 */
+	public void writeSpec(DataOutput out) throws IOException {
+		if(validation != null)
+			throw new NotSerializableException("Argument " + names[0] + " has assertions, which can't be written in a snapshot");
+		if(choiceSource != null)
+			throw new NotSerializableException("Argument " + names[0] + " has a choice source, which can't be written in a snapshot");
+		out.writeShort(names.length);
+		for(String n : names)
+			out.writeUTF(n);
+		writeString(out, destination);
+		writeString(out, description);
+		out.writeBoolean(required);
+		out.writeBoolean(ioBound);
+		out.writeInt(choices == null ? -1 : choiceList.size());
+		if(choices != null) {
+			for(String c : choiceList)
+				out.writeUTF(c);
+		}
+		writeValue(out, defaultValue);
+	}
+	
+	/**
+	 * Read this argument specification from a snapshot written with {@link #writeSpec(DataOutput)}.
+	 * Names are trusted and not validated again
+	 * @param in The snapshot input
+	 * @throws IOException If reading failed
+	 */
+	@SuppressWarnings("unchecked")
+	public void readSpec(DataInput in) throws IOException {
+		names = new String[in.readUnsignedShort()];
+		for(int i = 0; i < names.length; i++)
+			names[i] = in.readUTF();
+		defaultDestination = names[0].substring(names[0].startsWith("--") ? 2 : 1);
+		destination = readString(in);
+		description = readString(in);
+		required = in.readBoolean();
+		ioBound = in.readBoolean();
+		int count = in.readInt();
+		if(count >= 0) {
+			String[] c = new String[count];
+			for(int i = 0; i < count; i++)
+				c[i] = in.readUTF();
+			setChoices(c);
+		}
+		defaultValue = (E) readValue(in);
+		changed();
+	}
+	
+	/**
+	 * Write a string which may be <code>null</code>
+	 * @param out The output
+	 * @param s The string
+	 * @throws IOException If writing failed
+	 */
+	protected static void writeString(DataOutput out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if(s != null)
+			out.writeUTF(s);
+	}
+	
+	/**
+	 * Read a string written with {@link #writeString(DataOutput, String)}
+	 * @param in The input
+	 * @return The string, or <code>null</code>
+	 * @throws IOException If reading failed
+	 */
+	protected static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+	
+	/**
+	 * Write a value of one of the built-in argument types
+	 * @param out The output
+	 * @param value The value, which may be <code>null</code>
+	 * @throws IOException If writing failed
+	 * @throws NotSerializableException If the value type is not supported
+	 */
+	private void writeValue(DataOutput out, Object value) throws IOException {
+		if(value == null)
+			out.writeByte(0);
+		else if(value instanceof Boolean) {
+			out.writeByte(1);
+			out.writeBoolean((Boolean) value);
+		} else if(value instanceof Integer) {
+			out.writeByte(2);
+			out.writeInt((Integer) value);
+		} else if(value instanceof Long) {
+			out.writeByte(3);
+			out.writeLong((Long) value);
+		} else if(value instanceof Double) {
+			out.writeByte(4);
+			out.writeDouble((Double) value);
+		} else if(value instanceof String) {
+			out.writeByte(5);
+			out.writeUTF((String) value);
+		} else if(value instanceof File) {
+			out.writeByte(6);
+			out.writeUTF(((File) value).getPath());
+		} else if(value instanceof int[]) {
+			int[] array = (int[]) value;
+			out.writeByte(7);
+			out.writeInt(array.length);
+			for(int i : array)
+				out.writeInt(i);
+		} else if(value instanceof long[]) {
+			long[] array = (long[]) value;
+			out.writeByte(8);
+			out.writeInt(array.length);
+			for(long l : array)
+				out.writeLong(l);
+		} else if(value instanceof List && allStrings((List<?>) value)) {
+			out.writeByte(9);
+			out.writeInt(((List<?>) value).size());
+			for(Object o : (List<?>) value)
+				out.writeUTF((String) o);
+		} else if(value instanceof Map && allStrings(((Map<?, ?>) value).keySet()) && allStrings(((Map<?, ?>) value).values())) {
+			out.writeByte(10);
+			out.writeInt(((Map<?, ?>) value).size());
+			for(Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+				out.writeUTF((String) e.getKey());
+				out.writeUTF((String) e.getValue());
+			}
+		} else
+			throw new NotSerializableException("Default value of argument " + names[0] + " can't be written in a snapshot");
+	}
+	
+	/**
+	 * @param values The values to check
+	 * @return <code>true</code> if all values are strings
+	 */
+	private static boolean allStrings(Collection<?> values) {
+		for(Object o : values) {
+			if(!(o instanceof String))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Read a value written with {@link #writeValue(DataOutput, Object)}
+	 * @param in The input
+	 * @return The value
+	 * @throws IOException If reading failed
+	 */
+	private static Object readValue(DataInput in) throws IOException {
+		int size;
+		switch(in.readByte()) {
+			case 0:
+				return null;
+			case 1:
+				return in.readBoolean();
+			case 2:
+				return in.readInt();
+			case 3:
+				return in.readLong();
+			case 4:
+				return in.readDouble();
+			case 5:
+				return in.readUTF();
+			case 6:
+				return new File(in.readUTF());
+			case 7:
+				int[] ints = new int[in.readInt()];
+				for(int i = 0; i < ints.length; i++)
+					ints[i] = in.readInt();
+				return ints;
+			case 8:
+				long[] longs = new long[in.readInt()];
+				for(int i = 0; i < longs.length; i++)
+					longs[i] = in.readLong();
+				return longs;
+			case 9:
+				String[] strings = new String[in.readInt()];
+				for(int i = 0; i < strings.length; i++)
+					strings[i] = in.readUTF();
+				return Arrays.asList(strings);
+			case 10:
+				size = in.readInt();
+				Map<String, String> map = new LinkedHashMap<>();
+				for(int i = 0; i < size; i++)
+					map.put(in.readUTF(), in.readUTF());
+				return map;
+			default:
+				throw new IOException("Corrupted snapshot : unknown value type");
+		}
+	}
+	
 	/**
 	 * Parse the value
 	 * @param value The value to parse
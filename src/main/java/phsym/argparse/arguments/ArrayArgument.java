@@ -29,19 +29,29 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package phsym.argparse.arguments;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
 import phsym.argparse.exceptions.ArgParseException;
 
 /**
- * Represent an argument that should be parsed as an array of E
+ * Represent an argument that should be parsed as an array of E.
+ * Elements are parsed in a single pass into a growable per-thread buffer, then copied into an array of the right size
  * @author phsym
  *
  * @param <E> The type of elements stored in the parsed array
  */
 public abstract class ArrayArgument<E> extends Argument<List<E>> {
 	
+	/**
+	 * Buffers larger than this are not kept between parsings
+	 */
+	private static final int MAX_KEPT = 1024;
+	private static final ThreadLocal<Object[]> BUFFER = new ThreadLocal<>();
+	
 	protected char separator = ',';
 	
 	/**
@@ -58,14 +68,32 @@ public abstract class ArrayArgument<E> extends Argument<List<E>> {
 	 */
 	public ArrayArgument<E> separator(char separator) {
 		this.separator = separator;
+		changed();
 		return this;
 	}
 
 	@Override
 	public final List<E> parse(String value) throws ArgParseException {
-		return Arrays.asList(Arrays.stream(value.split("\\s*" + separator + "\\s*"))
-			.map(this::parseElement)
-			.toArray(this::createArray));
+		// Taken out of the thread local, in case parsing an element parses another array
+		Object[] elements = BUFFER.get();
+		if(elements == null)
+			elements = new Object[16];
+		else
+			BUFFER.set(null);
+		int length = 0;
+		Splitter it = new Splitter(value, separator);
+		while(it.next()) {
+			if(length == elements.length)
+				elements = Arrays.copyOf(elements, length * 2);
+			elements[length++] = parseElement(it.element());
+		}
+		E[] array = createArray(length);
+		System.arraycopy(elements, 0, array, 0, length);
+		if(elements.length <= MAX_KEPT) {
+			Arrays.fill(elements, 0, length, null);
+			BUFFER.set(elements);
+		}
+		return Arrays.asList(array);
 	}
 
 	@Override
@@ -78,6 +106,11 @@ public abstract class ArrayArgument<E> extends Argument<List<E>> {
 		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
 	}
 	
+	@Override
+	public Argument<List<E>> choices(ChoiceSource source) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+	
 	/**
 	 * Create an uninitialized array of elements
 	 * @param len The size of the array to create
@@ -91,4 +124,16 @@ public abstract class ArrayArgument<E> extends Argument<List<E>> {
 	 * @return The parsed element
 	 */
 	protected abstract E parseElement(String element);
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		super.writeSpec(out);
+		out.writeChar(separator);
+	}
+	
+	@Override
+	public void readSpec(DataInput in) throws IOException {
+		super.readSpec(in);
+		separator = in.readChar();
+	}
 }
@@ -0,0 +1,149 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short lived cache of file attributes, shared by {@link FileSystemArgument}s to avoid
+ * reading the attributes of the same paths again, for instance when parsing many command
+ * lines in batch mode on a slow network file system. Missing files are cached too.
+ * <p>
+ * Cached attributes can be stale for up to the time to live, so the cache should only
+ * be used when files are not expected to change while parsing. Caches are thread safe
+ * @author phsym
+ *
+ */
+public final class AttributeCache {
+	
+	private static final class Entry {
+		final BasicFileAttributes attributes;
+		final long expires;
+		
+		Entry(BasicFileAttributes attributes, long expires) {
+			this.attributes = attributes;
+			this.expires = expires;
+		}
+	}
+	
+	private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+	private final long ttl;
+	private final int maxEntries;
+	
+	/**
+	 * Constructor
+	 * @param ttl How long attributes are cached
+	 * @param unit The time to live unit
+	 * @param maxEntries The maximum number of cached paths
+	 */
+	public AttributeCache(long ttl, TimeUnit unit, int maxEntries) {
+		if(ttl <= 0 || maxEntries <= 0)
+			throw new IllegalArgumentException("ttl and maxEntries must be strictly positive");
+		this.ttl = unit.toNanos(ttl);
+		this.maxEntries = maxEntries;
+	}
+	
+	/**
+	 * Constructor, caching up to 10000 paths
+	 * @param ttl How long attributes are cached
+	 * @param unit The time to live unit
+	 */
+	public AttributeCache(long ttl, TimeUnit unit) {
+		this(ttl, unit, 10000);
+	}
+	
+	/**
+	 * Get the attributes of a file, following symbolic links
+	 * @param path The file path
+	 * @return The file attributes, or <code>null</code> if it does not exist
+	 * @throws IOException If reading attributes failed
+	 */
+	public BasicFileAttributes get(Path path) throws IOException {
+		long now = System.nanoTime();
+		Entry e = entries.get(path);
+		if(e != null && now - e.expires < 0)
+			return e.attributes;
+		BasicFileAttributes attributes = read(path);
+		if(entries.size() >= maxEntries)
+			purge(now);
+		entries.put(path, new Entry(attributes, now + ttl));
+		return attributes;
+	}
+	
+	/**
+	 * Remove a path from the cache, after it was created or changed
+	 * @param path The path to remove
+	 */
+	public void invalidate(Path path) {
+		entries.remove(path);
+	}
+	
+	/**
+	 * Remove all paths from the cache
+	 */
+	public void clear() {
+		entries.clear();
+	}
+	
+	/**
+	 * Remove expired entries, or all of them if none expired
+	 */
+	private void purge(long now) {
+		Iterator<Entry> it = entries.values().iterator();
+		while(it.hasNext()) {
+			if(now - it.next().expires >= 0)
+				it.remove();
+		}
+		if(entries.size() >= maxEntries)
+			entries.clear();
+	}
+	
+	/**
+	 * Read the attributes of a file with a single call, following symbolic links
+	 * @param path The file path
+	 * @return The file attributes, or <code>null</code> if it does not exist
+	 * @throws IOException If reading attributes failed
+	 */
+	static BasicFileAttributes read(Path path) throws IOException {
+		try {
+			return Files.readAttributes(path, BasicFileAttributes.class);
+		} catch(NoSuchFileException e) {
+			return null;
+		}
+	}
+}
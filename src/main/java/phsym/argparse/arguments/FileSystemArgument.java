@@ -0,0 +1,273 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.exceptions.InvalidValueException;
+
+/**
+ * Represent an argument designating a file or a directory. Constraints are checked
+ * with a single read of the file attributes, optionally shared through an {@link AttributeCache}
+ * @author phsym
+ *
+ * @param <E> The type of the parsed value
+ */
+public abstract class FileSystemArgument<E> extends Argument<E> {
+	
+	private boolean exists = false;
+	private boolean directory = false;
+	private boolean create = false;
+	private boolean writable = false;
+	private boolean readable = false;
+	private boolean executable = false;
+	private AttributeCache cache = null;
+	
+	/**
+	 * Default constructor. File system arguments are {@link #ioBound(boolean) I/O bound}
+	 */
+	public FileSystemArgument() {
+		super();
+		ioBound(true);
+	}
+	
+	/**
+	 * Add a constraint on file existency
+	 * @param value If <code>true</code>, file must exist
+	 * @return this
+	 */
+	public FileSystemArgument<E> exists(boolean value) {
+		this.exists = value;
+		changed();
+		return this;
+	}
+	
+	/**
+	 * Add a contraint that provided path must be a directory
+	 * @param value If <code>true</code>, file must be a directory
+	 * @return this
+	 */
+	public FileSystemArgument<E> directory(boolean value) {
+		this.directory = value;
+		changed();
+		return this;
+	}
+	
+	/**
+	 * Create the file, with given rights
+	 * @param executable Execution right
+	 * @param readable Read right
+	 * @param writable write right
+	 * @return this
+	 */
+	public FileSystemArgument<E> create(boolean executable, boolean readable, boolean writable) {
+		this.create = true;
+		this.executable = executable;
+		this.readable = readable;
+		this.writable = writable;
+		changed();
+		return this;
+	}
+	
+	/**
+	 * Read file attributes through a cache, which can be shared between arguments and parsers
+	 * @param cache The cache to use, or <code>null</code> to always read attributes
+	 * @return this
+	 */
+	public FileSystemArgument<E> cache(AttributeCache cache) {
+		this.cache = cache;
+		changed();
+		return this;
+	}
+	
+	/**
+	 * Convert the checked path to the argument value
+	 * @param path The path
+	 * @return The argument value
+	 */
+	protected abstract E convert(Path path);
+	
+	@Override
+	public final E parse(String value) throws ArgParseException {
+		String name = getNames()[0];
+		Path path = toPath(name, value);
+		BasicFileAttributes attrs = attributes(name, path, cache);
+		if(attrs == null && create) {
+			create(path);
+			attrs = attributes(name, path, cache);
+		}
+		check(name, path, attrs, exists, directory);
+		return convert(path);
+	}
+	
+	/**
+	 * Create the missing file or directory, and its parents
+	 * @param path The path to create
+	 * @throws ArgParseException If creation failed
+	 */
+	private void create(Path path) throws ArgParseException {
+		Path parent = path.toAbsolutePath().getParent();
+		try {
+			if(directory) {
+				Files.createDirectories(path);
+			} else {
+				if(parent != null)
+					Files.createDirectories(parent);
+				try {
+					Files.createFile(path);
+				} catch(FileAlreadyExistsException e) {
+					// Created concurrently
+					return;
+				}
+				File file = path.toFile();
+				file.setExecutable(executable);
+				file.setReadable(readable);
+				file.setWritable(writable);
+			}
+		} catch(IOException e) {
+			throw new ArgParseException("Could not create " + (directory ? "dirs " : "file ") + path.toAbsolutePath(), e);
+		} finally {
+			if(cache != null) {
+				cache.invalidate(path);
+				if(parent != null)
+					cache.invalidate(parent);
+			}
+		}
+	}
+	
+	/**
+	 * Read file attributes with a single call, following symbolic links
+	 * @param name The argument name, used in error messages
+	 * @param path The path to read
+	 * @param cache The cache to read attributes through, or <code>null</code> to always read them
+	 * @return The file attributes, or <code>null</code> if it does not exist
+	 * @throws InvalidValueException If reading attributes failed
+	 */
+	private static BasicFileAttributes attributes(String name, Path path, AttributeCache cache) throws InvalidValueException {
+		try {
+			return cache != null ? cache.get(path) : AttributeCache.read(path);
+		} catch(IOException e) {
+			throw new InvalidValueException(name, path.toAbsolutePath().toString(), e);
+		}
+	}
+	
+	/**
+	 * Convert a value to a path
+	 * @param name The argument name, used in error messages
+	 * @param value The value to convert
+	 * @return The path
+	 * @throws InvalidValueException If the value is not a valid path
+	 */
+	protected static Path toPath(String name, String value) throws InvalidValueException {
+		// An empty path would resolve to the working directory
+		if(value.isEmpty())
+			throw new InvalidValueException(name, value, " must not be empty");
+		try {
+			return Paths.get(value);
+		} catch(InvalidPathException e) {
+			throw new InvalidValueException(name, value, e);
+		}
+	}
+	
+	/**
+	 * Read file attributes and check file constraints, without creating it
+	 * @param name The argument name, used in error messages
+	 * @param path The path to check
+	 * @param exists If <code>true</code>, file must exist
+	 * @param directory If <code>true</code>, file must be a directory, else it must be a regular file
+	 * @throws InvalidValueException If the file does not match constraints
+	 */
+	protected static void check(String name, Path path, boolean exists, boolean directory) throws InvalidValueException {
+		check(name, path, attributes(name, path, null), exists, directory);
+	}
+	
+	/**
+	 * Check file constraints
+	 * @param name The argument name, used in error messages
+	 * @param path The path to check
+	 * @param attrs The file attributes, or <code>null</code> if it does not exist
+	 * @param exists If <code>true</code>, file must exist
+	 * @param directory If <code>true</code>, file must be a directory, else it must be a regular file
+	 * @throws InvalidValueException If the file does not match constraints
+	 */
+	private static void check(String name, Path path, BasicFileAttributes attrs, boolean exists, boolean directory) throws InvalidValueException {
+		if(attrs == null) {
+			if(exists)
+				throw new InvalidValueException(name, path.toAbsolutePath().toString(), " must exists");
+		} else if(directory && !attrs.isDirectory())
+			throw new InvalidValueException(name, path.toAbsolutePath().toString(), " must be a directory");
+		else if(!directory && !attrs.isRegularFile())
+			throw new InvalidValueException(name, path.toAbsolutePath().toString(), " must be a file");
+	}
+
+	@Override
+	public boolean requireValue() {
+		return true;
+	}
+
+	@Override
+	public String typeDesc() {
+		if(directory)
+			return "dir";
+		return "file";
+	}
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		super.writeSpec(out);
+		out.writeBoolean(exists);
+		out.writeBoolean(directory);
+		out.writeBoolean(create);
+		out.writeBoolean(writable);
+		out.writeBoolean(readable);
+		out.writeBoolean(executable);
+	}
+	
+	@Override
+	public void readSpec(DataInput in) throws IOException {
+		super.readSpec(in);
+		exists = in.readBoolean();
+		directory = in.readBoolean();
+		create = in.readBoolean();
+		writable = in.readBoolean();
+		readable = in.readBoolean();
+		executable = in.readBoolean();
+	}
+}
@@ -41,5 +41,13 @@ public interface IHelpString {
 	 * Get the help string 
 	 */
 	public abstract String helpStr();
+	
+	/**
+	 * Append the help string to a buffer
+	 * @param out The buffer
+	 */
+	public default void appendHelp(StringBuilder out) {
+		out.append(helpStr());
+	}
 
 }
\ No newline at end of file
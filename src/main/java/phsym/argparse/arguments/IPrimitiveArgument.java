@@ -0,0 +1,77 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments;
+
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Represent an argument whose value is a primitive number, which can be parsed
+ * and checked without boxing. The value is carried as raw bits in a <code>long</code>
+ * @author phsym
+ *
+ */
+public interface IPrimitiveArgument {
+	
+	/**
+	 * Kind of an <code>int</code> value
+	 */
+	public static final byte INT = 2;
+	
+	/**
+	 * Kind of a <code>long</code> value
+	 */
+	public static final byte LONG = 3;
+	
+	/**
+	 * Kind of a <code>double</code> value, stored with {@link Double#doubleToRawLongBits(double)}
+	 */
+	public static final byte DOUBLE = 4;
+	
+	/**
+	 * @return The kind of primitive value produced by this argument
+	 */
+	public byte primitiveKind();
+	
+	/**
+	 * @return <code>true</code> if values are fully parsed and checked by {@link #processBits(String)},
+	 * <code>false</code> if they must go through {@link Argument#process(String)}, eg: when a subclass customizes parsing
+	 */
+	public default boolean hasPrimitiveParsing() {
+		return true;
+	}
+	
+	/**
+	 * Parse and check a value, without calling consumers or actions
+	 * @param value The string value to parse
+	 * @return The raw bits of the parsed value
+	 * @throws ArgParseException If parsing or checks failed
+	 */
+	public long processBits(String value) throws ArgParseException;
+}
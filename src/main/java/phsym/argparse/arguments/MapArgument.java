@@ -29,11 +29,14 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package phsym.argparse.arguments;
 
-import java.util.Arrays;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.exceptions.InvalidValueException;
 
 /**
  * Represent an argument that should be parsed as a map of <String, E>
@@ -61,14 +64,24 @@ public abstract class MapArgument<V> extends Argument<Map<String, V>> {
 	public MapArgument<V> separators(char entrySeparator, char keySeparator) {
 		this.entrySeparator = entrySeparator;
 		this.keySeparator = keySeparator;
+		changed();
 		return this;
 	}
 
 	@Override
 	public Map<String, V> parse(String value) throws ArgParseException {
-		return Arrays.stream(value.split("\\s*" + entrySeparator + "\\s*"))
-			.map((s) -> s.split("\\s*" + keySeparator + "\\s*"))
-			.reduce(new HashMap<>(), (r,e) -> {r.put(e[0], parseValue(e[1])); return r;}, (a, b) -> {a.putAll(b); return a;});
+		Map<String, V> map = new HashMap<>();
+		Splitter entries = new Splitter(value, entrySeparator);
+		while(entries.next()) {
+			Splitter entry = new Splitter(value, entries.begin(), entries.end(), keySeparator);
+			if(!entry.next())
+				throw new InvalidValueException(getNames()[0], value, " contains an empty entry");
+			String key = entry.element();
+			if(!entry.next())
+				throw new InvalidValueException(getNames()[0], value, " entry " + key + " has no value");
+			map.put(key, parseValue(entry.element()));
+		}
+		return map;
 	}
 
 	@Override
@@ -81,10 +94,29 @@ public abstract class MapArgument<V> extends Argument<Map<String, V>> {
 		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
 	}
 	
+	@Override
+	public Argument<Map<String, V>> choices(ChoiceSource source) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+	
 	/**
 	 * Parse the value to store in the map
 	 * @param value The string representation of the value
 	 * @return The parsed value
 	 */
 	protected abstract V parseValue(String value);
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		super.writeSpec(out);
+		out.writeChar(entrySeparator);
+		out.writeChar(keySeparator);
+	}
+	
+	@Override
+	public void readSpec(DataInput in) throws IOException {
+		super.readSpec(in);
+		entrySeparator = in.readChar();
+		keySeparator = in.readChar();
+	}
 }
@@ -0,0 +1,254 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Choices read from a UTF-8 file holding one value per line, sorted in byte order (eg: with <code>LC_ALL=C sort</code>).
+ * The file is memory mapped and only an index of line offsets is kept on the heap, values are
+ * looked up with a binary search in the mapped file.
+ * <p>
+ * The file modification time and size are checked at most once per reload interval, and the file
+ * is mapped again when they changed. Replace the file atomically (eg: write a new file then rename it)
+ * rather than rewriting it in place. If reloading fails, the previous content is kept.
+ * <p>
+ * Sources are thread safe and can be shared between parsers :
+ * <pre>
+ * ChoiceSource regions = SortedFileChoices.open(Paths.get("regions.txt"));
+ * parser.add(STRING, "--region").choices(regions);
+ * </pre>
+ * @author phsym
+ *
+ */
+public final class SortedFileChoices implements ChoiceSource {
+	
+	/**
+	 * A mapped version of the file, with the index of its lines
+	 */
+	private static final class Table {
+		final ByteBuffer data;
+		/** Start and end offsets of each line, end exclusive */
+		final int[] bounds;
+		final int count;
+		final FileTime modified;
+		final long size;
+		
+		Table(ByteBuffer data, int[] bounds, int count, FileTime modified, long size) {
+			this.data = data;
+			this.bounds = bounds;
+			this.count = count;
+			this.modified = modified;
+			this.size = size;
+		}
+	}
+	
+	private final Path file;
+	private volatile Table table;
+	private volatile long reloadInterval = TimeUnit.SECONDS.toNanos(1);
+	private volatile long nextCheck;
+	
+	private SortedFileChoices(Path file) throws IOException {
+		this.file = file;
+		BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+		table = load(file, attrs);
+		nextCheck = System.nanoTime() + reloadInterval;
+	}
+	
+	/**
+	 * Map a sorted choices file
+	 * @param file The file to map
+	 * @return The choice source
+	 * @throws IOException If the file can't be read, is larger than 2GB or is not sorted
+	 */
+	public static SortedFileChoices open(Path file) throws IOException {
+		return new SortedFileChoices(file);
+	}
+	
+	/**
+	 * Set how often the file is checked for changes. Default is 1 second
+	 * @param interval The interval between checks, or 0 to check on every lookup
+	 * @param unit The interval unit
+	 * @return this
+	 */
+	public SortedFileChoices reloadInterval(long interval, TimeUnit unit) {
+		if(interval < 0)
+			throw new IllegalArgumentException("interval must be positive");
+		reloadInterval = unit.toNanos(interval);
+		nextCheck = System.nanoTime();
+		return this;
+	}
+	
+	/**
+	 * @return The number of values in the file, duplicates included
+	 */
+	public int size() {
+		return current().count;
+	}
+	
+	@Override
+	public boolean contains(String value) {
+		Table t = current();
+		byte[] key = value.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = t.count - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compare(t.data, t.bounds[2*mid], t.bounds[2*mid+1], key);
+			if(cmp < 0)
+				low = mid + 1;
+			else if(cmp > 0)
+				high = mid - 1;
+			else
+				return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public String describe() {
+		return file.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return describe();
+	}
+	
+	/**
+	 * Get the current table, reloading the file if it changed and the reload interval has elapsed
+	 * @return The current table
+	 */
+	private Table current() {
+		long now = System.nanoTime();
+		if(now - nextCheck >= 0)
+			refresh(now);
+		return table;
+	}
+	
+	private synchronized void refresh(long now) {
+		if(now - nextCheck < 0)
+			return;
+		nextCheck = now + reloadInterval;
+		try {
+			BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+			Table t = table;
+			if(attrs.size() != t.size || !attrs.lastModifiedTime().equals(t.modified))
+				table = load(file, attrs);
+		} catch(IOException e) {
+			// Keep the previous content, and try again at next check
+		}
+	}
+	
+	/**
+	 * Map a file and index its lines, checking they are sorted. Empty lines are ignored
+	 * @param file The file to map
+	 * @param attrs The file attributes, read before mapping
+	 * @return The mapped table
+	 * @throws IOException If the file can't be read, is larger than 2GB or is not sorted
+	 */
+	private static Table load(Path file, BasicFileAttributes attrs) throws IOException {
+		if(attrs.size() > Integer.MAX_VALUE)
+			throw new IOException("Choices file " + file + " is larger than 2GB");
+		MappedByteBuffer data;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		int size = data.limit();
+		int[] bounds = new int[64];
+		int count = 0;
+		int start = 0;
+		while(start < size) {
+			int end = start;
+			while(end < size && data.get(end) != '\n')
+				end++;
+			int next = end + 1;
+			if(end > start && data.get(end - 1) == '\r')
+				end--;
+			if(end > start) {
+				if(count > 0 && compare(data, bounds[2*count-2], bounds[2*count-1], start, end) > 0)
+					throw new IOException("Choices file " + file + " is not sorted at line " + lineOf(data, start));
+				if(2*count + 2 > bounds.length)
+					bounds = Arrays.copyOf(bounds, bounds.length * 2);
+				bounds[2*count] = start;
+				bounds[2*count+1] = end;
+				count++;
+			}
+			start = next;
+		}
+		return new Table(data, bounds, count, attrs.lastModifiedTime(), attrs.size());
+	}
+	
+	private static int lineOf(ByteBuffer data, int offset) {
+		int line = 1;
+		for(int i = 0; i < offset; i++) {
+			if(data.get(i) == '\n')
+				line++;
+		}
+		return line;
+	}
+	
+	/**
+	 * Compare a line of the file with a key, as unsigned bytes
+	 */
+	private static int compare(ByteBuffer data, int start, int end, byte[] key) {
+		int len = Math.min(end - start, key.length);
+		for(int i = 0; i < len; i++) {
+			int cmp = (data.get(start + i) & 0xFF) - (key[i] & 0xFF);
+			if(cmp != 0)
+				return cmp;
+		}
+		return (end - start) - key.length;
+	}
+	
+	/**
+	 * Compare two lines of the file, as unsigned bytes
+	 */
+	private static int compare(ByteBuffer data, int start1, int end1, int start2, int end2) {
+		int len = Math.min(end1 - start1, end2 - start2);
+		for(int i = 0; i < len; i++) {
+			int cmp = (data.get(start1 + i) & 0xFF) - (data.get(start2 + i) & 0xFF);
+			if(cmp != 0)
+				return cmp;
+		}
+		return (end1 - start1) - (end2 - start2);
+	}
+}
@@ -0,0 +1,191 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments;
+
+/**
+ * Single pass, regex free splitter for separated list values. Elements are
+ * returned as ranges in the value, with whitespaces around separators trimmed.
+ * Like {@link String#split(String)}, trailing empty elements are discarded. When the separator is
+ * itself a whitespace, any run of whitespaces containing it is a single separator, as with the
+ * <code>\s*sep\s*</code> regex.
+ * <p>
+ * Usage :
+ * <pre>
+ * Splitter it = new Splitter(value, ',');
+ * while(it.next())
+ *     list.add(it.element());
+ * </pre>
+ * @author phsym
+ *
+ */
+public final class Splitter {
+	
+	private final CharSequence value;
+	private final char separator;
+	private final int start;
+	private final int end;
+	private final boolean cut;
+	private final boolean blank;
+	private int next;
+	private int begin;
+	private int stop;
+	
+	/**
+	 * Constructor
+	 * @param value The value to split
+	 * @param separator The separator character
+	 */
+	public Splitter(CharSequence value, char separator) {
+		this(value, 0, value.length(), separator);
+	}
+	
+	/**
+	 * Constructor
+	 * @param value The value containing the range to split
+	 * @param from Start index of the range, inclusive
+	 * @param to End index of the range, exclusive
+	 * @param separator The separator character
+	 */
+	public Splitter(CharSequence value, int from, int to, char separator) {
+		this.value = value;
+		this.separator = separator;
+		this.start = from;
+		this.blank = isWhitespace(separator);
+		// Look for trailing empty elements, made of separators and whitespaces only
+		int firstTrailingSep = -1;
+		int i = to - 1;
+		for(; i >= from; i--) {
+			char c = value.charAt(i);
+			if(c == separator)
+				firstTrailingSep = i;
+			else if(!isWhitespace(c))
+				break;
+		}
+		this.cut = firstTrailingSep >= 0;
+		if(!cut)
+			this.end = to;
+		else if(i < from)
+			this.end = from - 1;
+		else if(blank)
+			// The whole trailing whitespace run is the separator
+			this.end = i + 1;
+		else
+			this.end = firstTrailingSep;
+		this.next = from;
+	}
+	
+	/**
+	 * Check if a character is matched by <code>\s</code> in regular expressions
+	 * @param c The character to check
+	 */
+	static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+	
+	/**
+	 * Move to the next element
+	 * @return <code>true</code> if there is an element, <code>false</code> when the end is reached
+	 */
+	public boolean next() {
+		if(next > end)
+			return false;
+		if(blank)
+			return nextBlank();
+		int i = next;
+		while(i < end && value.charAt(i) != separator)
+			i++;
+		int b = next;
+		int e = i;
+		if(b > start) {
+			while(b < e && isWhitespace(value.charAt(b)))
+				b++;
+		}
+		if(i < end || cut) {
+			while(e > b && isWhitespace(value.charAt(e - 1)))
+				e--;
+		}
+		begin = b;
+		stop = e;
+		next = i + 1;
+		return true;
+	}
+	
+	/**
+	 * Move to the next element when the separator is a whitespace. Elements are not trimmed,
+	 * since whitespaces around a separator belong to it
+	 */
+	private boolean nextBlank() {
+		int i = next;
+		while(i < end) {
+			if(!isWhitespace(value.charAt(i))) {
+				i++;
+				continue;
+			}
+			int run = i;
+			boolean separated = false;
+			while(i < end && isWhitespace(value.charAt(i))) {
+				if(value.charAt(i) == separator)
+					separated = true;
+				i++;
+			}
+			if(separated) {
+				begin = next;
+				stop = run;
+				next = i;
+				return true;
+			}
+		}
+		begin = next;
+		stop = end;
+		next = end + 1;
+		return true;
+	}
+	
+	/**
+	 * @return The start index of the current element, inclusive
+	 */
+	public int begin() {
+		return begin;
+	}
+	
+	/**
+	 * @return The end index of the current element, exclusive
+	 */
+	public int end() {
+		return stop;
+	}
+	
+	/**
+	 * @return The current element
+	 */
+	public String element() {
+		return value.subSequence(begin, stop).toString();
+	}
+}
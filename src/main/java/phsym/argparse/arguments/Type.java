@@ -30,8 +30,13 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package phsym.argparse.arguments;
 
 import phsym.argparse.arguments.impl.BoolArgument;
+import phsym.argparse.arguments.impl.DoubleArgument;
 import phsym.argparse.arguments.impl.FileArgument;
 import phsym.argparse.arguments.impl.IntArgument;
+import phsym.argparse.arguments.impl.IntArrayArgument;
+import phsym.argparse.arguments.impl.LongArgument;
+import phsym.argparse.arguments.impl.LongArrayArgument;
+import phsym.argparse.arguments.impl.PathArgument;
 import phsym.argparse.arguments.impl.StringArgument;
 import phsym.argparse.arguments.impl.StringArrayArgument;
 import phsym.argparse.arguments.impl.StringMapArgument;
@@ -52,6 +57,16 @@ public interface Type {
 	 */
 	public static final Class<IntArgument> INT = IntArgument.class;
 	
+	/**
+	 * Long integer argument
+	 */
+	public static final Class<LongArgument> LONG = LongArgument.class;
+	
+	/**
+	 * Floating point argument
+	 */
+	public static final Class<DoubleArgument> DOUBLE = DoubleArgument.class;
+	
 	/**
 	 * String argument
 	 */
@@ -62,6 +77,16 @@ public interface Type {
 	 */
 	public static final Class<StringArrayArgument> STRING_ARRAY = StringArrayArgument.class;
 	
+	/**
+	 * Array of integers argument
+	 */
+	public static final Class<IntArrayArgument> INT_ARRAY = IntArrayArgument.class;
+	
+	/**
+	 * Array of long integers argument
+	 */
+	public static final Class<LongArrayArgument> LONG_ARRAY = LongArrayArgument.class;
+	
 	/**
 	 * Map of strings argument
 	 */
@@ -71,4 +96,9 @@ public interface Type {
 	 * File argument
 	 */
 	public static final Class<FileArgument> FILE = FileArgument.class;
+	
+	/**
+	 * Path argument
+	 */
+	public static final Class<PathArgument> PATH = PathArgument.class;
 }
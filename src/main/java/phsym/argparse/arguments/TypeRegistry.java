@@ -0,0 +1,232 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import phsym.argparse.ArgParse;
+import phsym.argparse.arguments.impl.BoolArgument;
+import phsym.argparse.arguments.impl.DoubleArgument;
+import phsym.argparse.arguments.impl.FileArgument;
+import phsym.argparse.arguments.impl.IntArgument;
+import phsym.argparse.arguments.impl.IntArrayArgument;
+import phsym.argparse.arguments.impl.LongArgument;
+import phsym.argparse.arguments.impl.LongArrayArgument;
+import phsym.argparse.arguments.impl.PathArgument;
+import phsym.argparse.arguments.impl.StringArgument;
+import phsym.argparse.arguments.impl.StringArrayArgument;
+import phsym.argparse.arguments.impl.StringMapArgument;
+
+/**
+ * Registry of argument types, mapping type names and classes to factories, so that
+ * {@link ArgParse} can create arguments without reflection. Third party argument types
+ * can be registered in the {@link #global()} registry, or in a dedicated one
+ * @author phsym
+ *
+ */
+public final class TypeRegistry {
+	
+	private static final TypeRegistry GLOBAL = new TypeRegistry()
+		.register("bool", Type.BOOL, new NewBool())
+		.register("int", Type.INT, new NewInt())
+		.register("long", Type.LONG, new NewLong())
+		.register("double", Type.DOUBLE, new NewDouble())
+		.register("string", Type.STRING, new NewString())
+		.register("string[]", Type.STRING_ARRAY, new NewStringArray())
+		.register("int[]", Type.INT_ARRAY, new NewIntArray())
+		.register("long[]", Type.LONG_ARRAY, new NewLongArray())
+		.register("string{}", Type.STRING_MAP, new NewStringMap())
+		.register("file", Type.FILE, new NewFile())
+		.register("path", Type.PATH, new NewPath());
+	
+	/*
+	 * Factories of built-in types, one per type. Implemented as classes rather than constructor
+	 * references, so that loading the registry does not trigger lambda bootstrapping
+	 */
+	private static final class NewBool implements Supplier<BoolArgument> {
+		@Override
+		public BoolArgument get() {
+			return new BoolArgument();
+		}
+	}
+	
+	private static final class NewInt implements Supplier<IntArgument> {
+		@Override
+		public IntArgument get() {
+			return new IntArgument();
+		}
+	}
+	
+	private static final class NewLong implements Supplier<LongArgument> {
+		@Override
+		public LongArgument get() {
+			return new LongArgument();
+		}
+	}
+	
+	private static final class NewDouble implements Supplier<DoubleArgument> {
+		@Override
+		public DoubleArgument get() {
+			return new DoubleArgument();
+		}
+	}
+	
+	private static final class NewString implements Supplier<StringArgument> {
+		@Override
+		public StringArgument get() {
+			return new StringArgument();
+		}
+	}
+	
+	private static final class NewStringArray implements Supplier<StringArrayArgument> {
+		@Override
+		public StringArrayArgument get() {
+			return new StringArrayArgument();
+		}
+	}
+	
+	private static final class NewIntArray implements Supplier<IntArrayArgument> {
+		@Override
+		public IntArrayArgument get() {
+			return new IntArrayArgument();
+		}
+	}
+	
+	private static final class NewLongArray implements Supplier<LongArrayArgument> {
+		@Override
+		public LongArrayArgument get() {
+			return new LongArrayArgument();
+		}
+	}
+	
+	private static final class NewStringMap implements Supplier<StringMapArgument> {
+		@Override
+		public StringMapArgument get() {
+			return new StringMapArgument();
+		}
+	}
+	
+	private static final class NewFile implements Supplier<FileArgument> {
+		@Override
+		public FileArgument get() {
+			return new FileArgument();
+		}
+	}
+	
+	private static final class NewPath implements Supplier<PathArgument> {
+		@Override
+		public PathArgument get() {
+			return new PathArgument();
+		}
+	}
+	
+	private final Map<String, Supplier<? extends Argument<?>>> byName = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Supplier<? extends Argument<?>>> byClass = new ConcurrentHashMap<>();
+	private final Map<Class<?>, String> names = new ConcurrentHashMap<>();
+	
+	/**
+	 * Create an empty registry
+	 */
+	public TypeRegistry() {
+	}
+	
+	/**
+	 * Create a registry with all the types of another one
+	 * @param parent The registry to copy
+	 */
+	public TypeRegistry(TypeRegistry parent) {
+		byName.putAll(parent.byName);
+		byClass.putAll(parent.byClass);
+		names.putAll(parent.names);
+	}
+	
+	/**
+	 * @return The registry used by default by {@link ArgParse}, containing all types defined in {@link Type}
+	 */
+	public static TypeRegistry global() {
+		return GLOBAL;
+	}
+	
+	/**
+	 * Register an argument type. If the class is already registered, it keeps its factory, so that
+	 * a factory creating a customized subclass (eg: an anonymous one) is only available by name.
+	 * The factory is called once, to find the class of the arguments it creates : that class is the one
+	 * {@link #nameOf(Class)} maps to this name, unless it has already been registered with another name
+	 * @param name The type name
+	 * @param type The argument class
+	 * @param factory The factory creating new arguments of this type
+	 * @return this
+	 */
+	public <T extends Argument<?>> TypeRegistry register(String name, Class<T> type, Supplier<T> factory) {
+		byName.put(name, factory);
+		byClass.putIfAbsent(type, factory);
+		names.putIfAbsent(factory.get().getClass(), name);
+		return this;
+	}
+	
+	/**
+	 * Get the factory for a type name
+	 * @param name The type name
+	 * @return The factory, or <code>null</code> if the type is unknown
+	 */
+	public Supplier<? extends Argument<?>> factory(String name) {
+		return byName.get(name);
+	}
+	
+	/**
+	 * Get the factory for an argument class
+	 * @param type The argument class
+	 * @return The factory, or <code>null</code> if the type is unknown
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Argument<?>> Supplier<T> factory(Class<T> type) {
+		return (Supplier<T>) byClass.get(type);
+	}
+	
+	/**
+	 * Get the name an argument class has been registered with
+	 * @param type The argument class
+	 * @return The type name, or <code>null</code> if the type is unknown
+	 */
+	public String nameOf(Class<?> type) {
+		return names.get(type);
+	}
+	
+	/**
+	 * @return The registered type names
+	 */
+	public Set<String> typeNames() {
+		return Collections.unmodifiableSet(byName.keySet());
+	}
+}
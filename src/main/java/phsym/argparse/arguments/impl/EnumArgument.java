@@ -0,0 +1,130 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.util.function.Supplier;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.ChoiceSource;
+import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.exceptions.InvalidValueException;
+
+/**
+ * Represent an argument whose value is one of the constants of an enum.
+ * Constants are looked up by name in a precomputed hash map. Usage :
+ * <pre>
+ * Argument&lt;Level&gt; level = parser.add(EnumArgument.of(Level.class), "--level").ignoreCase(true);
+ * </pre>
+ * @author phsym
+ *
+ * @param <E> The enum type
+ */
+public class EnumArgument<E extends Enum<E>> extends Argument<E> {
+	
+	private final EnumNames<E> names;
+	
+	/**
+	 * Constructor
+	 * @param type The enum class
+	 */
+	public EnumArgument(Class<E> type) {
+		super();
+		names = new EnumNames<>(type);
+	}
+	
+	/**
+	 * Get a factory creating enum arguments, to be used with {@link phsym.argparse.ArgParse#add(Supplier, String, String...)}
+	 * @param type The enum class
+	 * @return The factory
+	 */
+	public static <E extends Enum<E>> Supplier<EnumArgument<E>> of(Class<E> type) {
+		return new Factory<>(type);
+	}
+	
+	/**
+	 * Match constant names regardless of case
+	 * @param ignoreCase <code>true</code> to ignore case (default is <code>false</code>)
+	 * @return this
+	 * @throws IllegalArgumentException If two constants only differ by case
+	 */
+	public EnumArgument<E> ignoreCase(boolean ignoreCase) {
+		names.ignoreCase(ignoreCase);
+		return this;
+	}
+	
+	/**
+	 * @return The enum class
+	 */
+	public Class<E> getEnumType() {
+		return names.type();
+	}
+
+	@Override
+	public E parse(String value) throws ArgParseException {
+		E e = names.get(value);
+		if(e == null)
+			throw new InvalidValueException(getNames()[0], value, names.names());
+		return e;
+	}
+
+	@Override
+	public boolean requireValue() {
+		return true;
+	}
+	
+	@Override
+	public Argument<E> choices(String... choices) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+	
+	@Override
+	public Argument<E> choices(ChoiceSource source) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+
+	@Override
+	public String typeDesc() {
+		return names.describe();
+	}
+	
+	private static final class Factory<E extends Enum<E>> implements Supplier<EnumArgument<E>> {
+		
+		private final Class<E> type;
+		
+		Factory(Class<E> type) {
+			this.type = type;
+		}
+
+		@Override
+		public EnumArgument<E> get() {
+			return new EnumArgument<>(type);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Precomputed lookup of enum constants by name, optionally case insensitive
+ * @author phsym
+ *
+ * @param <E> The enum type
+ */
+final class EnumNames<E extends Enum<E>> {
+	
+	private final Class<E> type;
+	private final E[] constants;
+	private final List<String> names;
+	private final Map<String, E> exact;
+	private Map<String, E> folded = null;
+	
+	/**
+	 * Constructor
+	 * @param type The enum class
+	 */
+	EnumNames(Class<E> type) {
+		if(!type.isEnum())
+			throw new IllegalArgumentException(type.getName() + " is not an enum");
+		this.type = type;
+		constants = type.getEnumConstants();
+		String[] n = new String[constants.length];
+		exact = new HashMap<>(constants.length * 2);
+		for(int i = 0; i < constants.length; i++) {
+			n[i] = constants[i].name();
+			exact.put(n[i], constants[i]);
+		}
+		names = Collections.unmodifiableList(Arrays.asList(n));
+	}
+	
+	/**
+	 * Enable or disable case insensitive lookup
+	 * @param ignoreCase <code>true</code> to ignore case
+	 * @throws IllegalArgumentException If two constants only differ by case
+	 */
+	void ignoreCase(boolean ignoreCase) {
+		if(!ignoreCase) {
+			folded = null;
+			return;
+		}
+		Map<String, E> map = new HashMap<>(constants.length * 2);
+		for(E c : constants) {
+			if(map.put(fold(c.name()), c) != null)
+				throw new IllegalArgumentException("Constants of " + type.getName() + " only differ by case");
+		}
+		folded = map;
+	}
+	
+	/**
+	 * @return <code>true</code> if lookup is case insensitive
+	 */
+	boolean ignoresCase() {
+		return folded != null;
+	}
+	
+	/**
+	 * Find a constant by name
+	 * @param name The constant name
+	 * @return The constant, or <code>null</code> if not found
+	 */
+	E get(String name) {
+		E e = exact.get(name);
+		if(e == null && folded != null)
+			e = folded.get(fold(name));
+		return e;
+	}
+	
+	/**
+	 * @return The enum class
+	 */
+	Class<E> type() {
+		return type;
+	}
+	
+	/**
+	 * @return The constant names, in declaration order
+	 */
+	List<String> names() {
+		return names;
+	}
+	
+	/**
+	 * @return The constant names separated with " | ", for help
+	 */
+	String describe() {
+		return String.join(" | ", names);
+	}
+	
+	private static String fold(String name) {
+		return name.toUpperCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,147 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.util.EnumSet;
+import java.util.function.Supplier;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.ChoiceSource;
+import phsym.argparse.arguments.Splitter;
+import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.exceptions.InvalidValueException;
+
+/**
+ * Represent a list of enum constants argument, parsed into an {@link EnumSet}.
+ * Duplicated constants are only counted once
+ * @author phsym
+ *
+ * @param <E> The enum type
+ */
+public class EnumSetArgument<E extends Enum<E>> extends Argument<EnumSet<E>> {
+	
+	private final EnumNames<E> names;
+	private char separator = ',';
+	
+	/**
+	 * Constructor
+	 * @param type The enum class
+	 */
+	public EnumSetArgument(Class<E> type) {
+		super();
+		names = new EnumNames<>(type);
+	}
+	
+	/**
+	 * Get a factory creating enum set arguments, to be used with {@link phsym.argparse.ArgParse#add(Supplier, String, String...)}
+	 * @param type The enum class
+	 * @return The factory
+	 */
+	public static <E extends Enum<E>> Supplier<EnumSetArgument<E>> of(Class<E> type) {
+		return new Factory<>(type);
+	}
+	
+	/**
+	 * Set the separator character used in list to separate elements
+	 * @param separator The separator to use (default is set to ',')
+	 * @return this
+	 */
+	public EnumSetArgument<E> separator(char separator) {
+		this.separator = separator;
+		changed();
+		return this;
+	}
+	
+	/**
+	 * Match constant names regardless of case
+	 * @param ignoreCase <code>true</code> to ignore case (default is <code>false</code>)
+	 * @return this
+	 * @throws IllegalArgumentException If two constants only differ by case
+	 */
+	public EnumSetArgument<E> ignoreCase(boolean ignoreCase) {
+		names.ignoreCase(ignoreCase);
+		return this;
+	}
+	
+	/**
+	 * @return The enum class
+	 */
+	public Class<E> getEnumType() {
+		return names.type();
+	}
+
+	@Override
+	public EnumSet<E> parse(String value) throws ArgParseException {
+		EnumSet<E> set = EnumSet.noneOf(names.type());
+		Splitter it = new Splitter(value, separator);
+		while(it.next()) {
+			String element = it.element();
+			E e = names.get(element);
+			if(e == null)
+				throw new InvalidValueException(getNames()[0], element, names.names());
+			set.add(e);
+		}
+		return set;
+	}
+
+	@Override
+	public boolean requireValue() {
+		return true;
+	}
+	
+	@Override
+	public Argument<EnumSet<E>> choices(String... choices) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+	
+	@Override
+	public Argument<EnumSet<E>> choices(ChoiceSource source) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+
+	@Override
+	public String typeDesc() {
+		return "(" + names.describe() + ")[" + separator + " ...]";
+	}
+	
+	private static final class Factory<E extends Enum<E>> implements Supplier<EnumSetArgument<E>> {
+		
+		private final Class<E> type;
+		
+		Factory(Class<E> type) {
+			this.type = type;
+		}
+
+		@Override
+		public EnumSetArgument<E> get() {
+			return new EnumSetArgument<>(type);
+		}
+	}
+}
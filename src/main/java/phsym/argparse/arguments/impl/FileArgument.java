@@ -30,25 +30,19 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package phsym.argparse.arguments.impl;
 
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.Path;
 
-import phsym.argparse.arguments.Argument;
-import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.arguments.AttributeCache;
+import phsym.argparse.arguments.FileSystemArgument;
 import phsym.argparse.exceptions.InvalidValueException;
 
 /**
  * Represent a file argument
  * @author phsym
  *
+ * @see PathArgument
  */
-public class FileArgument extends Argument<File> {
-	
-	private boolean exists = false;
-	private boolean directory = false;
-	private boolean create = false;
-	private boolean writable = false;
-	private boolean readable = false;
-	private boolean executable = false;
+public class FileArgument extends FileSystemArgument<File> {
 	
 	/**
 	 * Default constructor
@@ -57,80 +51,47 @@ public class FileArgument extends Argument<File> {
 		super();
 	}
 	
-	/**
-	 * Add a constraint on file existency
-	 * @param value If <code>true</code>, file must exist
-	 * @return this
-	 */
+	@Override
 	public FileArgument exists(boolean value) {
-		this.exists = value;
+		super.exists(value);
 		return this;
 	}
 	
-	/**
-	 * Add a contraint that provided path must be a directory
-	 * @param value If <code>true</code>, file must be a directory
-	 * @return this
-	 */
+	@Override
 	public FileArgument directory(boolean value) {
-		this.directory = value;
+		super.directory(value);
 		return this;
 	}
 	
-	/**
-	 * Create the file, with given rights
-	 * @param executable Execution right
-	 * @param readable Read right
-	 * @param writable write right
-	 * @return this
-	 */
+	@Override
 	public FileArgument create(boolean executable, boolean readable, boolean writable) {
-		this.create = true;
-		this.executable = executable;
-		this.readable = readable;
-		this.writable = writable;
+		super.create(executable, readable, writable);
 		return this;
 	}
-
+	
 	@Override
-	public File parse(String value) throws ArgParseException {
-		File file = new File(value);
-		if(!file.exists() && create) {
-			if(directory) {
-				if(!file.mkdirs())
-					throw new ArgParseException("Could not create dirs " + file.getAbsolutePath());
-			} else
-				try {
-					if(file.getParentFile()!= null && !file.getParentFile().exists() && !file.getParentFile().mkdirs())
-						throw new ArgParseException("Could not create parent dirs " + file.getAbsolutePath());
-					System.out.println("create new file");
-					file.createNewFile();
-					file.setExecutable(executable);
-					file.setReadable(readable);
-					file.setWritable(writable);
-				} catch (IOException e) {
-					throw new ArgParseException("Could not create file " + file.getAbsolutePath(), e);
-				}
-		}
-		if(exists && !file.exists())
-			throw new InvalidValueException(this.getNames()[0], file.getAbsolutePath(), " must exists");
-		if(directory && file.exists() && !file.isDirectory())
-			throw new InvalidValueException(this.getNames()[0], file.getAbsolutePath(), " must be a directory");
-		else if(!directory && file.exists() && !file.isFile())
-			throw new InvalidValueException(this.getNames()[0], file.getAbsolutePath(), " must be a file");
-		
-		return file;
+	public FileArgument cache(AttributeCache cache) {
+		super.cache(cache);
+		return this;
 	}
-
+	
 	@Override
-	public boolean requireValue() {
-		return true;
+	protected File convert(Path path) {
+		return path.toFile();
 	}
-
-	@Override
-	public String typeDesc() {
-		if(directory)
-			return "dir";
-		return "file";
+	
+	/**
+	 * Parse a value the way file arguments do, without creating it
+	 * @param name The argument name, used in error messages
+	 * @param value The value to parse
+	 * @param exists If <code>true</code>, file must exist
+	 * @param directory If <code>true</code>, file must be a directory, else it must be a regular file
+	 * @return The parsed file
+	 * @throws InvalidValueException If the file does not match constraints
+	 */
+	public static File parseValue(String name, String value, boolean exists, boolean directory) throws InvalidValueException {
+		Path path = toPath(name, value);
+		check(name, path, exists, directory);
+		return path.toFile();
 	}
 }
@@ -29,8 +29,11 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package phsym.argparse.arguments.impl;
 
-import phsym.argparse.arguments.Argument;
-import phsym.argparse.exceptions.ArgParseException;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.IntPredicate;
+
 import phsym.argparse.exceptions.InvalidValueException;
 
 /**
@@ -38,16 +41,19 @@ import phsym.argparse.exceptions.InvalidValueException;
  * @author phsym
  *
  */
-public class IntArgument extends Argument<Integer> {
+public class IntArgument extends NumberArgument<Integer> {
 	
-	private Integer lower = null;
-	private Integer upper = null;
+	private int lower;
+	private int upper;
+	private boolean hasLower = false;
+	private boolean hasUpper = false;
+	private IntPredicate intValidation;
 
 	/**
 	 * Default constructor
 	 */
 	public IntArgument() {
-		super();
+		super("int", INT);
 	}
 	
 	/**
@@ -57,6 +63,7 @@ public class IntArgument extends Argument<Integer> {
 	 */
 	public IntArgument ge(int lowerBound) {
 		lower = lowerBound;
+		hasLower = true;
 		return this;
 	}
 	
@@ -67,6 +74,7 @@ public class IntArgument extends Argument<Integer> {
 	 */
 	public IntArgument lt(int upperBound) {
 		upper = upperBound;
+		hasUpper = true;
 		return this;
 	}
 	
@@ -80,33 +88,80 @@ public class IntArgument extends Argument<Integer> {
 	
 	/**
 	 * Add a negativity constraint
-	 * @return
+	 * @return this
 	 */
 	public IntArgument negative() {
 		return lt(0);
 	}
-
+	
+	/**
+	 * Add an assertion predicate on the primitive value, which will be checked after argument value has been parsed
+	 * @param predicate A predicate that checks the parsed value
+	 * @return this
+	 */
+	public IntArgument andAssertInt(IntPredicate predicate) {
+		if(intValidation == null)
+			intValidation = predicate;
+		else
+			intValidation = intValidation.and(predicate);
+		return this;
+	}
+	
+	/**
+	 * Parse a value the way int arguments do, without any constraint check
+	 * @param name The argument name, used in error messages
+	 * @param value The value to parse
+	 * @return The parsed value
+	 * @throws InvalidValueException If the value is not a valid int
+	 */
+	public static int parseValue(String name, String value) throws InvalidValueException {
+		if(!Numbers.isLong(value, 0, value.length(), Integer.MIN_VALUE, Integer.MAX_VALUE))
+			throw new InvalidValueException(name, value);
+		return (int) Numbers.parseLong(value, 0, value.length());
+	}
+	
 	@Override
-	public Integer parse(String value) throws ArgParseException {
-		try {
-			int i = Integer.parseInt(value);
-			if(lower != null && i < lower)
-				throw new InvalidValueException(getNames()[0], value, " must be equal or greater than " + lower);
-			if(upper != null && i >= upper)
-				throw new InvalidValueException(getNames()[0], value, " Must be lower than " + upper);
-			return i;
-		} catch(NumberFormatException e) {
-			throw new InvalidValueException(getNames()[0], value, e);
-		}
+	protected long parseBits(String value) throws InvalidValueException {
+		int v = parseValue(getNames()[0], value);
+		if(hasLower && v < lower)
+			throw belowLower(value, lower);
+		if(hasUpper && v >= upper)
+			throw notBelowUpper(value, upper);
+		if(intValidation != null && !intValidation.test(v))
+			throw new InvalidValueException(getNames()[0], value);
+		return v;
 	}
-
+	
 	@Override
-	public boolean requireValue() {
-		return true;
+	protected Integer fromBits(long bits) {
+		return (int) bits;
 	}
-
+	
+	@Override
+	protected long toBits(Integer value) {
+		return value;
+	}
+	
+	@Override
+	protected boolean hasPrimitiveAssertion() {
+		return intValidation != null;
+	}
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		super.writeSpec(out);
+		out.writeBoolean(hasLower);
+		out.writeInt(lower);
+		out.writeBoolean(hasUpper);
+		out.writeInt(upper);
+	}
+	
 	@Override
-	public String typeDesc() {
-		return "int";
+	public void readSpec(DataInput in) throws IOException {
+		super.readSpec(in);
+		hasLower = in.readBoolean();
+		lower = in.readInt();
+		hasUpper = in.readBoolean();
+		upper = in.readInt();
 	}
 }
@@ -0,0 +1,106 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.util.Arrays;
+
+/**
+ * Represent a list of integers argument, parsed into an <code>int[]</code>
+ * @author phsym
+ *
+ */
+public class IntArrayArgument extends PrimitiveArrayArgument<int[]> {
+	
+	/**
+	 * Default constructor
+	 */
+	public IntArrayArgument() {
+		super("int", Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Set the separator character used in list to separate elements
+	 * @param separator The separator to use (default is set to ',')
+	 * @return this
+	 */
+	public IntArrayArgument separator(char separator) {
+		setSeparator(separator);
+		return this;
+	}
+	
+	/**
+	 * Add a Greater Or Equal constraint on each element
+	 * @param lowerBound The lower bound
+	 * @return this
+	 */
+	public IntArrayArgument ge(int lowerBound) {
+		setLower(lowerBound);
+		return this;
+	}
+	
+	/**
+	 * Add a Lower Than constraint on each element
+	 * @param upperBound The upper bound
+	 * @return this
+	 */
+	public IntArrayArgument lt(int upperBound) {
+		setUpper(upperBound);
+		return this;
+	}
+	
+	/**
+	 * Add a positivity constraint on each element
+	 * @return this
+	 */
+	public IntArrayArgument positive() {
+		return ge(0);
+	}
+	
+	/**
+	 * Add a negativity constraint on each element
+	 * @return this
+	 */
+	public IntArrayArgument negative() {
+		return lt(0);
+	}
+	
+	@Override
+	protected int[] toArray(long[] elements, int length) {
+		int[] array = new int[length];
+		for(int i = 0; i < length; i++)
+			array[i] = (int) elements[i];
+		return array;
+	}
+	
+	@Override
+	protected String defaultString() {
+		return Arrays.toString(getDefault());
+	}
+}
@@ -0,0 +1,167 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.LongPredicate;
+
+import phsym.argparse.exceptions.InvalidValueException;
+
+/**
+ * Represent a long integer argument
+ * @author phsym
+ *
+ */
+public class LongArgument extends NumberArgument<Long> {
+	
+	private long lower;
+	private long upper;
+	private boolean hasLower = false;
+	private boolean hasUpper = false;
+	private LongPredicate longValidation;
+
+	/**
+	 * Default constructor
+	 */
+	public LongArgument() {
+		super("long", LONG);
+	}
+	
+	/**
+	 * Add a Greater Or Equal constraint
+	 * @param lowerBound The lower bound
+	 * @return this
+	 */
+	public LongArgument ge(long lowerBound) {
+		lower = lowerBound;
+		hasLower = true;
+		return this;
+	}
+	
+	/**
+	 * Add a Lower Than constraint
+	 * @param upperBound The upper bound
+	 * @return this
+	 */
+	public LongArgument lt(long upperBound) {
+		upper = upperBound;
+		hasUpper = true;
+		return this;
+	}
+	
+	/**
+	 * Add a positivity constraint
+	 * @return this
+	 */
+	public LongArgument positive() {
+		return ge(0);
+	}
+	
+	/**
+	 * Add a negativity constraint
+	 * @return this
+	 */
+	public LongArgument negative() {
+		return lt(0);
+	}
+	
+	/**
+	 * Add an assertion predicate on the primitive value, which will be checked after argument value has been parsed
+	 * @param predicate A predicate that checks the parsed value
+	 * @return this
+	 */
+	public LongArgument andAssertLong(LongPredicate predicate) {
+		if(longValidation == null)
+			longValidation = predicate;
+		else
+			longValidation = longValidation.and(predicate);
+		return this;
+	}
+	
+	/**
+	 * Parse a value the way long arguments do, without any constraint check
+	 * @param name The argument name, used in error messages
+	 * @param value The value to parse
+	 * @return The parsed value
+	 * @throws InvalidValueException If the value is not a valid long
+	 */
+	public static long parseValue(String name, String value) throws InvalidValueException {
+		if(!Numbers.isLong(value, 0, value.length(), Long.MIN_VALUE, Long.MAX_VALUE))
+			throw new InvalidValueException(name, value);
+		return Numbers.parseLong(value, 0, value.length());
+	}
+	
+	@Override
+	protected long parseBits(String value) throws InvalidValueException {
+		long v = parseValue(getNames()[0], value);
+		if(hasLower && v < lower)
+			throw belowLower(value, lower);
+		if(hasUpper && v >= upper)
+			throw notBelowUpper(value, upper);
+		if(longValidation != null && !longValidation.test(v))
+			throw new InvalidValueException(getNames()[0], value);
+		return v;
+	}
+	
+	@Override
+	protected Long fromBits(long bits) {
+		return bits;
+	}
+	
+	@Override
+	protected long toBits(Long value) {
+		return value;
+	}
+	
+	@Override
+	protected boolean hasPrimitiveAssertion() {
+		return longValidation != null;
+	}
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		super.writeSpec(out);
+		out.writeBoolean(hasLower);
+		out.writeLong(lower);
+		out.writeBoolean(hasUpper);
+		out.writeLong(upper);
+	}
+	
+	@Override
+	public void readSpec(DataInput in) throws IOException {
+		super.readSpec(in);
+		hasLower = in.readBoolean();
+		lower = in.readLong();
+		hasUpper = in.readBoolean();
+		upper = in.readLong();
+	}
+}
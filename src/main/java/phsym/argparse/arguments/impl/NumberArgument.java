@@ -0,0 +1,170 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.lang.reflect.Method;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.IPrimitiveArgument;
+import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.exceptions.InvalidValueException;
+
+/**
+ * Represent a number argument, whose value is parsed and checked as raw bits without boxing
+ * @author phsym
+ *
+ * @param <T> The type of the parsed value
+ */
+public abstract class NumberArgument<T> extends Argument<T> implements IPrimitiveArgument {
+	
+	/**
+	 * Tell if a class overrides {@link #parse(String)} or {@link #check(Object)}
+	 */
+	private static final ClassValue<Boolean> CUSTOMIZED = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for(Class<?> c = type; c != NumberArgument.class; c = c.getSuperclass()) {
+				for(Method m : c.getDeclaredMethods()) {
+					if(m.getParameterCount() != 1)
+						continue;
+					if(m.getName().equals("parse") && m.getParameterTypes()[0] == String.class)
+						return true;
+					if(m.getName().equals("check"))
+						return true;
+				}
+			}
+			return false;
+		}
+	};
+	
+	private final String typeName;
+	private final byte kind;
+	
+	/**
+	 * Constructor
+	 * @param typeName The type name, as shown in help
+	 * @param kind The kind of primitive, as defined in {@link IPrimitiveArgument}
+	 */
+	protected NumberArgument(String typeName, byte kind) {
+		super();
+		this.typeName = typeName;
+		this.kind = kind;
+	}
+	
+	/**
+	 * Parse the value and check bounds and primitive assertions
+	 * @param value The value to parse
+	 * @return The raw bits of the parsed value
+	 * @throws InvalidValueException If parsing or checks failed
+	 */
+	protected abstract long parseBits(String value) throws InvalidValueException;
+	
+	/**
+	 * @param bits Raw bits returned by {@link #parseBits(String)}
+	 * @return The boxed value
+	 */
+	protected abstract T fromBits(long bits);
+	
+	/**
+	 * @param value A parsed value
+	 * @return Its raw bits
+	 */
+	protected abstract long toBits(T value);
+	
+	/**
+	 * @return <code>true</code> if assertions have been added on the primitive value
+	 */
+	protected abstract boolean hasPrimitiveAssertion();
+	
+	/**
+	 * @param value The invalid value
+	 * @param lower The lower bound
+	 * @return The exception thrown when a value is lower than the lower bound
+	 */
+	protected InvalidValueException belowLower(String value, Object lower) {
+		return new InvalidValueException(getNames()[0], value, " must be equal or greater than " + lower);
+	}
+	
+	/**
+	 * @param value The invalid value
+	 * @param upper The upper bound
+	 * @return The exception thrown when a value is not lower than the upper bound
+	 */
+	protected InvalidValueException notBelowUpper(String value, Object upper) {
+		return new InvalidValueException(getNames()[0], value, " Must be lower than " + upper);
+	}
+
+	@Override
+	public T parse(String value) throws ArgParseException {
+		return fromBits(parseBits(value));
+	}
+	
+	@Override
+	public byte primitiveKind() {
+		return kind;
+	}
+	
+	@Override
+	public boolean hasPrimitiveParsing() {
+		// Subclasses customizing parsing or checks must go through them, with boxed values
+		return !CUSTOMIZED.get(getClass());
+	}
+	
+	@Override
+	public final long processBits(String value) throws ArgParseException {
+		if(!hasPrimitiveParsing())
+			return toBits(validate(value));
+		checkChoice(value);
+		long bits = parseBits(value);
+		if(hasAssertion())
+			check(fromBits(bits));
+		return bits;
+	}
+
+	@Override
+	public boolean requireValue() {
+		return true;
+	}
+
+	@Override
+	public String typeDesc() {
+		return typeName;
+	}
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		if(hasPrimitiveAssertion())
+			throw new NotSerializableException("Argument " + getNames()[0] + " has assertions, which can't be written in a snapshot");
+		super.writeSpec(out);
+	}
+}
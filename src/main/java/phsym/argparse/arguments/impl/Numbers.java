@@ -0,0 +1,99 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+/**
+ * Allocation free number parsing helpers
+ * @author phsym
+ *
+ */
+final class Numbers {
+	
+	private Numbers() {
+	}
+	
+	/**
+	 * Check if a range of characters is a decimal integer in the accepted range. Invalid numbers are
+	 * reported without any exception, so that callers only build the one they throw
+	 * @param s The characters
+	 * @param begin Start index, inclusive
+	 * @param end End index, exclusive
+	 * @param min The minimum accepted value
+	 * @param max The maximum accepted value
+	 * @return <code>true</code> if the characters can be parsed with {@link #parseLong(CharSequence, int, int)}
+	 */
+	static boolean isLong(CharSequence s, int begin, int end, long min, long max) {
+		if(begin >= end)
+			return false;
+		boolean negative = false;
+		int i = begin;
+		char c = s.charAt(i);
+		if(c == '-' || c == '+') {
+			negative = c == '-';
+			if(++i == end)
+				return false;
+		}
+		// Accumulate negatively, like Long.parseLong, so that Long.MIN_VALUE can be checked
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multmin = limit / 10;
+		long result = 0;
+		for(; i < end; i++) {
+			int digit = s.charAt(i) - '0';
+			if(digit < 0 || digit > 9 || result < multmin)
+				return false;
+			result *= 10;
+			if(result < limit + digit)
+				return false;
+			result -= digit;
+		}
+		result = negative ? result : -result;
+		return result >= min && result <= max;
+	}
+	
+	/**
+	 * Parse a decimal integer from a range of characters, which must have been checked with
+	 * {@link #isLong(CharSequence, int, int, long, long)}
+	 * @param s The characters
+	 * @param begin Start index, inclusive
+	 * @param end End index, exclusive
+	 * @return The parsed value
+	 */
+	static long parseLong(CharSequence s, int begin, int end) {
+		int i = begin;
+		char c = s.charAt(i);
+		boolean negative = c == '-';
+		if(negative || c == '+')
+			i++;
+		long result = 0;
+		for(; i < end; i++)
+			result = result * 10 - (s.charAt(i) - '0');
+		return negative ? result : -result;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.nio.file.Path;
+
+import phsym.argparse.arguments.AttributeCache;
+import phsym.argparse.arguments.FileSystemArgument;
+
+/**
+ * Represent a file argument, parsed into a {@link Path}
+ * @author phsym
+ *
+ */
+public class PathArgument extends FileSystemArgument<Path> {
+	
+	/**
+	 * Default constructor
+	 */
+	public PathArgument() {
+		super();
+	}
+	
+	@Override
+	public PathArgument exists(boolean value) {
+		super.exists(value);
+		return this;
+	}
+	
+	@Override
+	public PathArgument directory(boolean value) {
+		super.directory(value);
+		return this;
+	}
+	
+	@Override
+	public PathArgument create(boolean executable, boolean readable, boolean writable) {
+		super.create(executable, readable, writable);
+		return this;
+	}
+	
+	@Override
+	public PathArgument cache(AttributeCache cache) {
+		super.cache(cache);
+		return this;
+	}
+	
+	@Override
+	protected Path convert(Path path) {
+		return path;
+	}
+}
@@ -0,0 +1,178 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse.arguments.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.ChoiceSource;
+import phsym.argparse.arguments.Splitter;
+import phsym.argparse.exceptions.ArgParseException;
+import phsym.argparse.exceptions.InvalidValueException;
+
+/**
+ * Represent a list of integral numbers argument, parsed into a primitive array.
+ * Elements are parsed in a single pass into a growable per-thread buffer, then copied into an array of the right type
+ * @author phsym
+ *
+ * @param <E> The type of the parsed array
+ */
+public abstract class PrimitiveArrayArgument<E> extends Argument<E> {
+	
+	/**
+	 * Buffers larger than this are not kept between parsings
+	 */
+	private static final int MAX_KEPT = 1024;
+	private static final ThreadLocal<long[]> BUFFER = new ThreadLocal<>();
+	
+	protected char separator = ',';
+	private final String elementType;
+	private final long min;
+	private final long max;
+	private long lower;
+	private long upper;
+	private boolean hasLower = false;
+	private boolean hasUpper = false;
+	
+	/**
+	 * Constructor
+	 * @param elementType The element type name, as shown in help
+	 * @param min The minimum value of an element
+	 * @param max The maximum value of an element
+	 */
+	protected PrimitiveArrayArgument(String elementType, long min, long max) {
+		super();
+		this.elementType = elementType;
+		this.min = min;
+		this.max = max;
+	}
+	
+	/**
+	 * Set the separator character used in list to separate elements
+	 * @param separator The separator to use
+	 */
+	protected void setSeparator(char separator) {
+		this.separator = separator;
+		changed();
+	}
+	
+	/**
+	 * Add a Greater Or Equal constraint on each element
+	 * @param lowerBound The lower bound
+	 */
+	protected void setLower(long lowerBound) {
+		lower = lowerBound;
+		hasLower = true;
+	}
+	
+	/**
+	 * Add a Lower Than constraint on each element
+	 * @param upperBound The upper bound
+	 */
+	protected void setUpper(long upperBound) {
+		upper = upperBound;
+		hasUpper = true;
+	}
+	
+	/**
+	 * Copy parsed elements into an array of the right type. The elements buffer is reused, it must not be kept
+	 * @param elements The parsed elements
+	 * @param length The number of elements
+	 * @return The array
+	 */
+	protected abstract E toArray(long[] elements, int length);
+
+	@Override
+	public final E parse(String value) throws ArgParseException {
+		long[] elements = BUFFER.get();
+		if(elements == null)
+			elements = new long[16];
+		int length = 0;
+		Splitter it = new Splitter(value, separator);
+		while(it.next()) {
+			if(!Numbers.isLong(value, it.begin(), it.end(), min, max))
+				throw new InvalidValueException(getNames()[0], value);
+			long e = Numbers.parseLong(value, it.begin(), it.end());
+			if(hasLower && e < lower)
+				throw new InvalidValueException(getNames()[0], value, " elements must be equal or greater than " + lower);
+			if(hasUpper && e >= upper)
+				throw new InvalidValueException(getNames()[0], value, " elements must be lower than " + upper);
+			if(length == elements.length)
+				elements = Arrays.copyOf(elements, length * 2);
+			elements[length++] = e;
+		}
+		if(elements.length <= MAX_KEPT)
+			BUFFER.set(elements);
+		return toArray(elements, length);
+	}
+
+	@Override
+	public boolean requireValue() {
+		return true;
+	}
+	
+	@Override
+	public Argument<E> choices(String... choices) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+	
+	@Override
+	public Argument<E> choices(ChoiceSource source) {
+		throw new RuntimeException(getClass().getName() + " cannot have multiple choices");
+	}
+
+	@Override
+	public String typeDesc() {
+		return elementType + "[" + separator + " ...]";
+	}
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		super.writeSpec(out);
+		out.writeChar(separator);
+		out.writeBoolean(hasLower);
+		out.writeLong(lower);
+		out.writeBoolean(hasUpper);
+		out.writeLong(upper);
+	}
+	
+	@Override
+	public void readSpec(DataInput in) throws IOException {
+		super.readSpec(in);
+		separator = in.readChar();
+		hasLower = in.readBoolean();
+		lower = in.readLong();
+		hasUpper = in.readBoolean();
+		upper = in.readLong();
+	}
+}
@@ -29,6 +29,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package phsym.argparse.arguments.impl;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import phsym.argparse.arguments.Argument;
@@ -43,6 +47,7 @@ import phsym.argparse.exceptions.InvalidValueException;
 public class StringArgument extends Argument<String> {
 	
 	private Pattern pattern = null;
+	private long matchTimeout = 0;
 	
 	/**
 	 * Default constructor
@@ -61,9 +66,93 @@ public class StringArgument extends Argument<String> {
 		return this;
 	}
 	
+	/**
+	 * Bound the time spent matching a value against the pattern, so that a pathological value can't
+	 * block the parsing thread. A value that could not be matched in time is rejected
+	 * @param timeout The maximum matching time, or 0 for no limit
+	 * @param unit The timeout unit
+	 * @return this
+	 */
+	public StringArgument matchTimeout(long timeout, TimeUnit unit) {
+		if(timeout < 0)
+			throw new IllegalArgumentException("timeout must be positive");
+		matchTimeout = unit.toNanos(timeout);
+		return this;
+	}
+	
+	/**
+	 * Match a value against the pattern, within the match timeout if any
+	 * @param value The value to match
+	 * @return <code>true</code> if the value matches
+	 * @throws InvalidValueException If the value could not be matched in time
+	 */
+	private boolean matches(String value) throws InvalidValueException {
+		if(matchTimeout == 0)
+			return pattern.matcher(value).matches();
+		try {
+			return pattern.matcher(new DeadlineSequence(value, System.nanoTime() + matchTimeout)).matches();
+		} catch(DeadlineSequence.Expired e) {
+			throw new InvalidValueException(getNames()[0], value, " could not be matched against pattern " + pattern.pattern() + " in time");
+		}
+	}
+	
+	/**
+	 * A character sequence which fails when read after a deadline. The regex engine reads
+	 * characters at each step, including when backtracking, so it can't run past the deadline
+	 */
+	private static final class DeadlineSequence implements CharSequence {
+		
+		/**
+		 * Thrown when the deadline has passed. Stackless, since it is always caught
+		 */
+		static final class Expired extends RuntimeException {
+			private static final long serialVersionUID = 1L;
+
+			Expired() {
+				super(null, null, false, false);
+			}
+		}
+		
+		private static final int CHECK_INTERVAL = 1024;
+		
+		private final CharSequence value;
+		private final long deadline;
+		private int reads = 0;
+		
+		DeadlineSequence(CharSequence value, long deadline) {
+			this.value = value;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public int length() {
+			return value.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			if(++reads == CHECK_INTERVAL) {
+				reads = 0;
+				if(System.nanoTime() - deadline > 0)
+					throw new Expired();
+			}
+			return value.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new DeadlineSequence(value.subSequence(start, end), deadline);
+		}
+		
+		@Override
+		public String toString() {
+			return value.toString();
+		}
+	}
+	
 	@Override
 	public String parse(String value) throws ArgParseException {
-		if(pattern != null && !pattern.matcher(value).matches())
+		if(pattern != null && !matches(value))
 			throw new InvalidValueException(getNames()[0], value, " does not match pattern " + pattern.pattern());
 		return value;
 	}
@@ -77,5 +166,19 @@ public class StringArgument extends Argument<String> {
 	public String typeDesc() {
 		return "string";
 	}
-
+	
+	@Override
+	public void writeSpec(DataOutput out) throws IOException {
+		super.writeSpec(out);
+		writeString(out, pattern == null ? null : pattern.pattern());
+		out.writeLong(matchTimeout);
+	}
+	
+	@Override
+	public void readSpec(DataInput in) throws IOException {
+		super.readSpec(in);
+		String regex = readString(in);
+		pattern = regex == null ? null : Pattern.compile(regex);
+		matchTimeout = in.readLong();
+	}
 }
@@ -36,6 +36,8 @@ package phsym.argparse.exceptions;
  */
 public class ArgParseException extends Exception {
 	private static final long serialVersionUID = -6792226883236465703L;
+	
+	private static final ThreadLocal<Boolean> STACKLESS = new ThreadLocal<>();
 
 	public ArgParseException() {
 	}
@@ -51,4 +53,34 @@ public class ArgParseException extends Exception {
 	public ArgParseException(String message, Throwable cause) {
 		super(message, cause);
 	}
+	
+	/**
+	 * Create exceptions without stack trace in the current thread, which is much cheaper when
+	 * many parsing errors are expected and handled
+	 * @param stackless If <code>true</code>, exceptions created by the current thread have no stack trace
+	 * @return The previous setting, to be restored when done
+	 */
+	public static boolean setStackless(boolean stackless) {
+		boolean previous = STACKLESS.get() != null;
+		if(stackless)
+			STACKLESS.set(Boolean.TRUE);
+		else
+			STACKLESS.remove();
+		return previous;
+	}
+	
+	/**
+	 * @return <code>true</code> if exceptions created by the current thread have no stack trace
+	 * @see #setStackless(boolean)
+	 */
+	public static boolean isStackless() {
+		return STACKLESS.get() != null;
+	}
+	
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		if(STACKLESS.get() != null)
+			return this;
+		return super.fillInStackTrace();
+	}
 }
@@ -39,6 +39,12 @@ import java.util.List;
 public class InvalidValueException extends ArgParseException {
 
 	private static final long serialVersionUID = -2472708344900858077L;
+	
+	private final String argName;
+	private final String value;
+	private final List<String> choices;
+	private final String detail;
+	private String message;
 
 	/**
 	 * Constructor
@@ -47,7 +53,7 @@ public class InvalidValueException extends ArgParseException {
 	 * @param e
 	 */
 	public InvalidValueException(String argName, String value, Throwable e) {
-		super("Invalid argument value for " + argName + " : " + value, e);
+		this(argName, value, null, null, e);
 	}
 	
 	/**
@@ -58,7 +64,7 @@ public class InvalidValueException extends ArgParseException {
 	 * @param e
 	 */
 	public InvalidValueException(String argName, String value, List<String> choices, Throwable e) {
-		super("Invalid argument value for " + argName + " : " + value + ". Possible choices are " + choices.toString(), e);
+		this(argName, value, choices, null, e);
 	}
 	
 	/**
@@ -67,7 +73,7 @@ public class InvalidValueException extends ArgParseException {
 	 * @param value Invalid value
 	 */
 	public InvalidValueException(String argName, String value) {
-		super("Invalid argument value for " + argName + " : " + value, null);
+		this(argName, value, null, null, null);
 	}
 	
 	/**
@@ -77,7 +83,7 @@ public class InvalidValueException extends ArgParseException {
 	 * @param choices Possible values when applicable
 	 */
 	public InvalidValueException(String argName, String value, List<String> choices) {
-		super("Invalid argument value for " + argName + " : " + value + ". Possible choices are " + choices.toString(), null);
+		this(argName, value, choices, null, null);
 	}
 	
 	/**
@@ -87,6 +93,58 @@ public class InvalidValueException extends ArgParseException {
 	 * @param msg Additional message
 	 */
 	public InvalidValueException(String argName, String value, String msg) {
-		super("Invalid argument value for " + argName + " : " + value + " " + msg, null);
+		this(argName, value, null, msg, null);
+	}
+	
+	/**
+	 * Constructor. The message is only formatted when requested
+	 * @param argName argument name
+	 * @param value Invalid value
+	 * @param choices Possible values when applicable
+	 * @param detail Additional message
+	 * @param e The cause
+	 */
+	private InvalidValueException(String argName, String value, List<String> choices, String detail, Throwable e) {
+		super((String) null, e);
+		this.argName = argName;
+		this.value = value;
+		this.choices = choices;
+		this.detail = detail;
+	}
+	
+	/**
+	 * @return The argument name
+	 */
+	public String getArgumentName() {
+		return argName;
+	}
+	
+	/**
+	 * @return The invalid value
+	 */
+	public String getValue() {
+		return value;
+	}
+	
+	/**
+	 * @return The possible values, or <code>null</code> if not applicable
+	 */
+	public List<String> getChoices() {
+		return choices;
+	}
+	
+	@Override
+	public String getMessage() {
+		String m = message;
+		if(m == null) {
+			StringBuilder sb = new StringBuilder("Invalid argument value for ").append(argName).append(" : ").append(value);
+			if(choices != null)
+				sb.append(". Possible choices are ").append(choices.toString());
+			if(detail != null)
+				sb.append(" ").append(detail);
+			m = sb.toString();
+			message = m;
+		}
+		return m;
 	}
 }
@@ -39,12 +39,34 @@ import phsym.argparse.arguments.Argument;
 public class MissingArgumentException extends ArgParseException {
 
 	private static final long serialVersionUID = -7819296322556485892L;
+	
+	private final String name;
 
 	/**
 	 * Constructor
 	 * @param argument The missing argument
 	 */
 	public MissingArgumentException(Argument<?> argument) {
-		super("Argument " + argument.getNames()[0] + " is missing");
+		this(argument.getNames()[0]);
+	}
+	
+	/**
+	 * Constructor
+	 * @param name The missing argument name
+	 */
+	public MissingArgumentException(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * @return The missing argument name
+	 */
+	public String getArgumentName() {
+		return name;
+	}
+	
+	@Override
+	public String getMessage() {
+		return "Argument " + name + " is missing";
 	}
 }
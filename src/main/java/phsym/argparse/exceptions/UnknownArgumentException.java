@@ -37,11 +37,25 @@ package phsym.argparse.exceptions;
 public class UnknownArgumentException extends ArgParseException {
 	private static final long serialVersionUID = -8723495139166161294L;
 	
+	private final String argument;
+	
 	/**
 	 * Constructor
 	 * @param argument The unexpected argument name
 	 */
 	public UnknownArgumentException(String argument) {
-		super("Unknown argument : " + argument);
+		this.argument = argument;
+	}
+	
+	/**
+	 * @return The unexpected argument name
+	 */
+	public String getArgumentName() {
+		return argument;
+	}
+	
+	@Override
+	public String getMessage() {
+		return "Unknown argument : " + argument;
 	}
 }
\ No newline at end of file
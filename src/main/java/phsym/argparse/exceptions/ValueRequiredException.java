@@ -39,11 +39,33 @@ import phsym.argparse.arguments.Argument;
 public class ValueRequiredException extends ArgParseException {
 	private static final long serialVersionUID = 1L;
 	
+	private final String name;
+	
 	/**
 	 * Constructor
 	 * @param argument The missing a value
 	 */
 	public ValueRequiredException(Argument<?> argument) {
-		super("Argument " + argument.getNames()[0] + " require a value");
+		this(argument.getNames()[0]);
+	}
+	
+	/**
+	 * Constructor
+	 * @param name The name of the argument missing a value
+	 */
+	public ValueRequiredException(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * @return The name of the argument missing a value
+	 */
+	public String getArgumentName() {
+		return name;
+	}
+	
+	@Override
+	public String getMessage() {
+		return "Argument " + name + " require a value";
 	}
 }
@@ -0,0 +1,203 @@
+/*
+Copyright (c) 2014, Pierre-Henri Symoneaux
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of jArgParse nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package phsym.argparse;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import phsym.argparse.arguments.Type;
+import phsym.argparse.exceptions.ArgParseException;
+
+/**
+ * Check the number of bytes allocated per {@link ArgParse#parseThrow(String[])} call, after warmup,
+ * against a recorded budget. Budgets should only be raised with a good reason.
+ * <p>
+ * Allocations depend on the JDK, so budgets are only checked on the JDK they were recorded on
+ * ({@value #RECORDED_ON}), with at least 20% margin over the measured allocation. Run with
+ * <code>-Dargparse.allocationBudgets=true</code> to check them on another JDK
+ * @author phsym
+ *
+ */
+public class AllocationTest implements Type {
+	
+	private static final int WARMUP = 20000;
+	private static final int ITERATIONS = 2000;
+	
+	/**
+	 * The Java specification version budgets were recorded on
+	 */
+	private static final String RECORDED_ON = "17";
+	
+	private static com.sun.management.ThreadMXBean threads;
+	private static File tmpFile;
+	
+	@BeforeClass
+	public static void setup() throws IOException {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			threads = (com.sun.management.ThreadMXBean) bean;
+			threads.setThreadAllocatedMemoryEnabled(true);
+		}
+		tmpFile = File.createTempFile("alloc", "test");
+	}
+	
+	@AfterClass
+	public static void tearDown() {
+		tmpFile.delete();
+	}
+	
+	/**
+	 * Measure the average number of bytes allocated by parsing arguments
+	 * @param parser The parser
+	 * @param args The arguments
+	 * @return The average number of bytes allocated per parsing
+	 */
+	private static long bytesPerParse(ArgParse parser, String ... args) throws ArgParseException {
+		long tid = Thread.currentThread().getId();
+		for(int i = 0; i < WARMUP; i++)
+			parser.parseThrow(args);
+		long before = threads.getThreadAllocatedBytes(tid);
+		for(int i = 0; i < ITERATIONS; i++)
+			parser.parseThrow(args);
+		long after = threads.getThreadAllocatedBytes(tid);
+		return (after - before) / ITERATIONS;
+	}
+	
+	/**
+	 * Check the allocation of parsing against a budget
+	 * @param budget The maximum number of bytes per parsing
+	 * @param parser The parser
+	 * @param args The arguments
+	 */
+	private static void assertBudget(long budget, ArgParse parser, String ... args) throws ArgParseException {
+		assumeNotNull(threads);
+		assumeTrue("Allocation budgets were recorded on JDK " + RECORDED_ON,
+			RECORDED_ON.equals(System.getProperty("java.specification.version")) || Boolean.getBoolean("argparse.allocationBudgets"));
+		long bytes = bytesPerParse(parser, args);
+		assertTrue("Parsing allocated " + bytes + " bytes, budget is " + budget, bytes <= budget);
+	}
+	
+	@Test
+	public void test_bool() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(BOOL, "-b");
+		assertBudget(300, parser, "-b");
+	}
+	
+	@Test
+	public void test_int() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i").positive().lt(100000);
+		assertBudget(300, parser, "-i", "4242");
+	}
+	
+	@Test
+	public void test_long() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(LONG, "-l").positive();
+		assertBudget(300, parser, "-l", "123456789012");
+	}
+	
+	@Test
+	public void test_double() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(DOUBLE, "-d").lt(10);
+		assertBudget(360, parser, "-d", "3.14159");
+	}
+	
+	@Test
+	public void test_string() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(STRING, "-s");
+		assertBudget(300, parser, "-s", "value");
+	}
+	
+	@Test
+	public void test_string_array() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(STRING_ARRAY, "-a");
+		assertBudget(600, parser, "-a", "a, b, c, d");
+	}
+	
+	@Test
+	public void test_int_array() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT_ARRAY, "-a").positive();
+		assertBudget(400, parser, "-a", "1, 2, 3, 4");
+	}
+	
+	@Test
+	public void test_long_array() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(LONG_ARRAY, "-a").positive();
+		assertBudget(450, parser, "-a", "1, 2, 3, 4");
+	}
+	
+	@Test
+	public void test_string_map() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(STRING_MAP, "-m");
+		assertBudget(1100, parser, "-m", "a:1, b:2, c:3");
+	}
+	
+	@Test
+	public void test_file() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(FILE, "-f").exists(true);
+		assertBudget(700, parser, "-f", tmpFile.getAbsolutePath());
+	}
+	
+	@Test
+	public void test_path() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(PATH, "-p").exists(true);
+		assertBudget(600, parser, "-p", tmpFile.getAbsolutePath());
+	}
+	
+	@Test
+	public void test_mixed_with_defaults() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(BOOL, "-b");
+		parser.add(INT, "-i").positive();
+		parser.add(LONG, "-l").setDefault(12L);
+		parser.add(STRING, "-s").setDefault("default");
+		parser.add(INT_ARRAY, "-a");
+		parser.add(STRING, "-r").required(true);
+		assertBudget(350, parser, "-b", "-i", "12", "-r", "required");
+	}
+}
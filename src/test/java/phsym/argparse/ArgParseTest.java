@@ -31,14 +31,52 @@ package phsym.argparse;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import org.junit.Test;
 
+import phsym.argparse.annotations.Option;
+import phsym.argparse.arguments.Argument;
+import phsym.argparse.arguments.AttributeCache;
+import phsym.argparse.arguments.SortedFileChoices;
+import phsym.argparse.arguments.Splitter;
 import phsym.argparse.arguments.Type;
+import phsym.argparse.arguments.TypeRegistry;
+import phsym.argparse.arguments.impl.BoolArgument;
+import phsym.argparse.arguments.impl.DoubleArgument;
+import phsym.argparse.arguments.impl.EnumArgument;
+import phsym.argparse.arguments.impl.EnumSetArgument;
+import phsym.argparse.arguments.impl.IntArgument;
+import phsym.argparse.arguments.impl.IntArrayArgument;
+import phsym.argparse.arguments.impl.LongArgument;
+import phsym.argparse.arguments.impl.LongArrayArgument;
+import phsym.argparse.arguments.impl.PathArgument;
+import phsym.argparse.arguments.impl.StringArgument;
+import phsym.argparse.arguments.impl.StringArrayArgument;
+import phsym.argparse.arguments.impl.StringMapArgument;
 import phsym.argparse.exceptions.ArgParseException;
 import phsym.argparse.exceptions.ArgumentConflictException;
 import phsym.argparse.exceptions.InvalidArgumentNameException;
@@ -77,6 +115,30 @@ public class ArgParseTest implements Type {
 		assertTrue(help[4].trim().equals("Epilog"));
 	}
 	
+	@Test
+	public void test_help_cache() throws IOException {
+		ArgParse parser = new ArgParse("Test").description("Description text");
+		IntArgument i = parser.add(INT, "-i");
+		i.help("Before");
+		String help = parser.help();
+		assertSame(help, parser.help());
+		StringBuilder out = new StringBuilder();
+		parser.help(out);
+		assertEquals(out.toString(), help);
+		
+		i.help("After").required(true);
+		help = parser.help();
+		assertTrue(help.contains("After"));
+		assertTrue(help.contains("Usage: Test -i <int> [options]"));
+		
+		parser.add(STRING_ARRAY, "-l").separator(';');
+		assertTrue(parser.help().contains("<string[; ...]>"));
+		parser.epilog("The end");
+		assertTrue(parser.help().contains("The end"));
+		parser.label("A label");
+		assertTrue(parser.help().contains("A label"));
+	}
+	
 	@Test
 	public void test_error_handler() {
 		ArgParse argparse = new ArgParse("Test")
@@ -154,6 +216,397 @@ public class ArgParseTest implements Type {
 		} catch(ArgumentConflictException e) {}
 	}
 	
+	@Test
+	public void test_conflict_alias() {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i", "--int");
+		try {
+			parser.add(STRING, "-j", "--int");
+			fail("No ArgumentConflictException thrown");
+		} catch(ArgumentConflictException e) {}
+	}
+	
+	@Test
+	public void test_compile() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i", "--int");
+		CompiledParser compiled = parser.compile();
+		assertSame(compiled, parser.compile());
+		assertSame(compiled.argument("-i"), compiled.argument("--int"));
+		assertNull(compiled.argument("-j"));
+		assertEquals(compiled.parseThrow(new String[]{"--int", "3"}).get("i"), 3);
+		
+		parser.add(STRING, "-s");
+		assertNotSame(compiled, parser.compile());
+		assertNull(compiled.argument("-s"));
+		assertNotNull(parser.compile().argument("-s"));
+	}
+	
+	@Test
+	public void test_reuse() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i").required(true);
+		parser.add(INT, "-d").setDefault(5);
+		Map<String, Object> res = parser.parseThrow(new String[]{"-i", "1", "-d", "2"});
+		assertEquals(res.get("d"), 2);
+		try {
+			parser.parseThrow(new String[]{});
+			fail("Exception was not thrown");
+		} catch(MissingArgumentException e) {}
+		res = parser.parseThrow(new String[]{"-i", "1"});
+		assertEquals(res.get("d"), 5);
+	}
+	
+	@Test
+	public void test_concurrent_parse() throws Exception {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i").required(true);
+		parser.add(STRING, "-s").setDefault("none");
+		CompiledParser compiled = parser.compile();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Map<String, Object>>> futures = new ArrayList<>();
+			for(int i = 0; i < 200; i++) {
+				String[] args = i % 2 == 0 ? new String[]{"-i", Integer.toString(i)} : new String[]{"-i", Integer.toString(i), "-s", "odd"};
+				futures.add(pool.submit(() -> compiled.parseThrow(args)));
+			}
+			for(int i = 0; i < futures.size(); i++) {
+				Map<String, Object> res = futures.get(i).get();
+				assertEquals(res.get("i"), i);
+				assertEquals(res.get("s"), i % 2 == 0 ? "none" : "odd");
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_typed_result() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		IntArgument i = parser.add(INT, "-i", "--int");
+		BoolArgument b = parser.add(BOOL, "-b");
+		StringArgument s = parser.add(STRING, "--str");
+		StringArgument d = parser.add(STRING, "-d");
+		d.dest("dst").setDefault("def");
+		ParseResult res = parser.parseThrow(new String[]{"--int", "42", "-b"});
+		assertEquals(res.getInt(i), 42);
+		assertTrue(res.getBoolean(b));
+		assertFalse(res.has(s));
+		assertNull(res.get(s));
+		assertEquals(res.get(d), "def");
+		assertEquals(res.get("dst"), "def");
+		assertEquals(res.get("i"), 42);
+		assertEquals(res.size(), 3);
+		assertFalse(res.containsKey("str"));
+		try {
+			res.getInt(new ArgParse("Other").add(INT, "-i"));
+			fail("IllegalArgumentException not raised");
+		} catch(IllegalArgumentException e) {}
+		// An argument shared by two parsers gets a slot in each of them
+		ArgParse shared = new ArgParse("Shared");
+		shared.add(INT, "-j");
+		assertEquals(shared.add(i), i);
+		assertEquals(shared.parseThrow(new String[]{"-i", "7"}).getInt(i), 7);
+		assertEquals(parser.parseThrow(new String[]{"-i", "8"}).getInt(i), 8);
+		ArgParse other = new ArgParse("Other");
+		BoolArgument absent = other.add(BOOL, "-q");
+		assertFalse(other.parseThrow(new String[0]).getBoolean(absent));
+	}
+	
+	@Test
+	public void test_shared_destination() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		StringArgument a = parser.add(STRING, "-a");
+		a.dest("x");
+		StringArgument b = parser.add(STRING, "-b");
+		b.dest("x");
+		ParseResult res = parser.parseThrow(new String[]{"-b", "vb", "-a", "va"});
+		assertEquals(res.get("x"), "va");
+		assertEquals(res.entrySet().iterator().next().getValue(), "va");
+		res = parser.parseThrow(new String[]{"-a", "va", "-b", "vb"});
+		assertEquals(res.get("x"), "vb");
+		assertEquals(res.entrySet().iterator().next().getValue(), "vb");
+		assertEquals(res.get(a), "va");
+		assertEquals(res.get(b), "vb");
+		
+		b.setDefault("db");
+		res = parser.parseThrow(new String[]{"-a", "va"});
+		assertEquals(res.get("x"), "db");
+		assertEquals(res.size(), 1);
+		
+		// Changing a destination after parsing recompiles the parser
+		a.dest("y");
+		res = parser.parseThrow(new String[]{"-a", "va"});
+		assertEquals(res.get("y"), "va");
+		assertEquals(res.get("x"), "db");
+		assertEquals(res.size(), 2);
+	}
+	
+	@Test
+	@SuppressWarnings("deprecation")
+	public void test_processed() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		StringArgument a = parser.add(STRING, "-a");
+		Argument<String> b = parser.add(STRING, "-b").setDefault("db");
+		StringArgument c = parser.add(STRING, "-c");
+		parser.parseThrow(new String[]{"-a", "va"});
+		assertTrue(a.hasBeenProcessed());
+		assertTrue(b.hasBeenProcessed());
+		assertTrue(c.hasNotBeenProcessed());
+		parser.parseThrow(new String[]{"-c", "vc"});
+		assertTrue(a.hasNotBeenProcessed());
+		assertTrue(c.hasBeenProcessed());
+	}
+	
+	@Test
+	public void test_parse_batch() throws Exception {
+		ArgParse parser = new ArgParse("Test");
+		IntArgument i = parser.add(INT, "-i").positive();
+		List<List<String>> records = new ArrayList<>();
+		for(int n = 0; n < 500; n++)
+			records.add(Arrays.asList("-i", Integer.toString(n % 7 == 0 ? -n : n)));
+		
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			for(List<BatchResult> results : Arrays.asList(parser.parseBatch(records.stream()), parser.parseBatch(records, pool))) {
+				assertEquals(results.size(), records.size());
+				for(int n = 0; n < results.size(); n++) {
+					BatchResult r = results.get(n);
+					assertEquals(r.getIndex(), n);
+					if(n % 7 == 0 && n != 0) {
+						assertFalse(r.isSuccess());
+						assertTrue(r.getError() instanceof InvalidValueException);
+						assertNull(r.getResult());
+					} else {
+						assertTrue(r.isSuccess());
+						assertEquals(r.getResult().getInt(i), n);
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_stream_driver() throws IOException {
+		ArgParse parser = new ArgParse("Test");
+		IntArgument i = parser.add(INT, "-i").positive();
+		StringArgument s = parser.add(STRING, "-s");
+		StringBuilder input = new StringBuilder();
+		for(int n = 0; n < 5000; n++)
+			input.append("-i\0").append(n % 10 == 9 ? -n : n).append("\0-s\0h\u00e9llo ").append(n).append("\0\n");
+		input.append("\n-s\0last");
+		
+		List<BatchResult> results = new ArrayList<>();
+		int count = new StreamDriver(parser.compile())
+			.queueSize(4)
+			.bufferSize(64)
+			.run(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), results::add);
+		assertEquals(count, 5001);
+		assertEquals(results.size(), 5001);
+		for(int n = 0; n < 5000; n++) {
+			BatchResult r = results.get(n);
+			assertEquals(r.getIndex(), n);
+			if(n % 10 == 9)
+				assertTrue(r.getError() instanceof InvalidValueException);
+			else {
+				assertEquals(r.getResult().getInt(i), n);
+				assertEquals(r.getResult().get(s), "h\u00e9llo " + n);
+			}
+		}
+		assertEquals(results.get(5000).getResult().get(s), "last");
+		
+		try {
+			new StreamDriver(parser.compile())
+				.maxRecordLength(10)
+				.run(new ByteArrayInputStream("-s\0aaaaaaaaaaaaaaaaaa\n".getBytes(StandardCharsets.UTF_8)), (r) -> {});
+			fail("IOException not raised");
+		} catch(IOException e) {}
+		
+		// A record made of delimiters only is bounded too
+		byte[] nuls = new byte[100000];
+		try {
+			new StreamDriver(parser.compile())
+				.maxRecordTokens(1000)
+				.run(new ByteArrayInputStream(nuls), (r) -> {});
+			fail("IOException not raised");
+		} catch(IOException e) {
+			assertTrue(e.getMessage().contains("1000 tokens"));
+		}
+	}
+	
+	@Test
+	public void test_stream_driver_handler_failure() throws Exception {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i");
+		CountDownLatch release = new CountDownLatch(1);
+		boolean[] closed = {false};
+		InputStream in = new InputStream() {
+			private final byte[] first = "-i\01\n".getBytes(StandardCharsets.UTF_8);
+			private int pos = 0;
+			
+			@Override
+			public int read() throws IOException {
+				throw new UnsupportedOperationException();
+			}
+			
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if(pos < first.length) {
+					int n = Math.min(len, first.length - pos);
+					System.arraycopy(first, pos, b, off, n);
+					pos += n;
+					return n;
+				}
+				// Block like an interactive stream until released
+				try {
+					release.await();
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return -1;
+			}
+			
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		try {
+			new StreamDriver(parser.compile()).run(in, (r) -> {
+				throw new IllegalStateException("handler failed");
+			});
+			fail("IllegalStateException not raised");
+		} catch(IllegalStateException e) {}
+		Thread.sleep(50);
+		assertFalse(closed[0]);
+		release.countDown();
+	}
+	
+	@Test(timeout = 10000)
+	public void test_stream_driver_source_failure() throws IOException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i");
+		InputStream in = new InputStream() {
+			private boolean first = true;
+			
+			@Override
+			public int read() throws IOException {
+				throw new UnsupportedOperationException();
+			}
+			
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if(!first)
+					throw new IllegalStateException("source failed");
+				first = false;
+				byte[] record = "-i\01\n".getBytes(StandardCharsets.UTF_8);
+				System.arraycopy(record, 0, b, off, record.length);
+				return record.length;
+			}
+		};
+		List<BatchResult> results = new ArrayList<>();
+		try {
+			new StreamDriver(parser.compile()).run(in, results::add);
+			fail("IllegalStateException not raised");
+		} catch(IllegalStateException e) {
+			assertEquals(e.getMessage(), "source failed");
+		}
+		assertEquals(results.size(), 1);
+	}
+	
+	@Test
+	public void test_tokenizer() throws ArgParseException {
+		String line = "  -a plain 'single \\ \" quoted' \"double \\\" \\$ \\x\" es\\ caped\\\n"
+			+ "\tmi'x'\"e\"d '' \\\n # comment 'unterminated\n--last";
+		List<String> tokens = new ArrayList<>();
+		new CommandLineTokenizer(line).validate().forEachRemaining(tokens::add);
+		assertEquals(Arrays.asList("-a", "plain", "single \\ \" quoted", "double \" $ \\x", "es caped", "mixed", "", "--last"), tokens);
+		
+		for(String invalid : new String[]{"-a 'foo", "-a \"foo\\\"", "'"}) {
+			try {
+				new CommandLineTokenizer(invalid).validate();
+				fail("ArgParseException not raised for " + invalid);
+			} catch(ArgParseException e) {}
+		}
+		
+		ArgParse parser = new ArgParse("Test");
+		IntArgument i = parser.add(INT, "-i");
+		StringArgument s = parser.add(STRING, "--str");
+		ParseResult res = parser.parseThrow("-i 3 --str 'hello world'");
+		assertEquals(res.getInt(i), 3);
+		assertEquals(res.get(s), "hello world");
+		try {
+			parser.parseThrow("--str 'hello");
+			fail("ArgParseException not raised");
+		} catch(ArgParseException e) {}
+	}
+	
+	@Test
+	public void test_arg_files() throws IOException, ArgParseException {
+		Path dir = Files.createTempDirectory("argfiles");
+		Path main = dir.resolve("main.args");
+		Path nested = dir.resolve("nested.args");
+		Path loop = dir.resolve("loop.args");
+		Files.write(main, "-i 4 # the int\n@nested.args\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(nested, "--str 'h\u00e9llo world'".getBytes(StandardCharsets.UTF_8));
+		Files.write(loop, "@loop.args".getBytes(StandardCharsets.UTF_8));
+		
+		ArgParse parser = new ArgParse("Test").expandArgFiles();
+		IntArgument i = parser.add(INT, "-i");
+		StringArgument s = parser.add(STRING, "--str");
+		ParseResult res = parser.parseThrow(new String[]{"@" + main});
+		assertEquals(res.getInt(i), 4);
+		assertEquals(res.get(s), "h\u00e9llo world");
+		
+		res = parser.parseThrow(new String[]{"--str", "@@at", "@" + nested, "-i", "5"});
+		assertEquals(res.get(s), "h\u00e9llo world");
+		assertEquals(res.getInt(i), 5);
+		assertEquals(parser.parseThrow(new String[]{"--str", "@@at"}).get(s), "@at");
+		
+		Files.write(nested, "--str changed".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(nested, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+		assertEquals(parser.parseThrow(new String[]{"@" + main}).get(s), "changed");
+		
+		for(String[] args : new String[][]{{"@" + loop}, {"@" + dir.resolve("missing")}}) {
+			try {
+				parser.parseThrow(args);
+				fail("ArgParseException not raised for " + Arrays.toString(args));
+			} catch(ArgParseException e) {}
+		}
+		
+		try {
+			new ArgParse("Test").parseThrow(new String[]{"@" + main});
+			fail("UnknownArgumentException not raised");
+		} catch(UnknownArgumentException e) {}
+		
+		// Files over the maximum size are rejected, least recently used files are evicted
+		Path a = dir.resolve("a.args");
+		Path b = dir.resolve("b.args");
+		Path big = dir.resolve("big.args");
+		Files.write(a, "-i 1".getBytes(StandardCharsets.UTF_8));
+		Files.write(b, "-i 3".getBytes(StandardCharsets.UTF_8));
+		Files.write(big, "-i 1234567890".getBytes(StandardCharsets.UTF_8));
+		ArgFiles files = new ArgFiles(8, 6);
+		ArgParse bounded = new ArgParse("Test").expandArgFiles(files);
+		IntArgument j = bounded.add(INT, "-i");
+		try {
+			bounded.parseThrow(new String[]{"@" + big});
+			fail("ArgParseException not raised for a file over the maximum size");
+		} catch(ArgParseException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertEquals(files.cachedBytes(), 0);
+		assertEquals(bounded.parseThrow(new String[]{"@" + a}).getInt(j), 1);
+		assertEquals(files.cachedBytes(), 4);
+		// The cache holds 6 bytes : b evicts a, then a evicts b
+		assertEquals(bounded.parseThrow(new String[]{"@" + b, "@" + a}).getInt(j), 1);
+		assertEquals(files.cachedBytes(), 4);
+		files.clear();
+		assertEquals(files.cachedBytes(), 0);
+	}
+	
 	@Test
 	public void test_name_validation() {
 		ArgParse parser = new ArgParse("Test");
@@ -244,6 +697,67 @@ public class ArgParseTest implements Type {
 		} catch(InvalidValueException e){}
 	}
 	
+	@Test
+	public void test_primitive_numbers() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		IntArgument i = parser.add(INT, "-i").ge(-5).lt(100).andAssertInt((x) -> x != 7);
+		LongArgument l = parser.add(LONG, "-l").positive();
+		DoubleArgument d = parser.add(DOUBLE, "-d").lt(1.5);
+		ParseResult res = parser.parseThrow(new String[]{"-i", "-5", "-l", "9223372036854775807", "-d", "0.25"});
+		assertEquals(res.getInt(i), -5);
+		assertEquals(res.getLong(l), Long.MAX_VALUE);
+		assertEquals(res.getDouble(d), 0.25, 0);
+		assertEquals(res.get("i"), -5);
+		assertEquals(res.get(l), (Long) Long.MAX_VALUE);
+		
+		String[][] invalid = {
+			{"-i", "7"}, {"-i", "100"}, {"-i", "-6"}, {"-i", "2147483648"}, {"-i", "+"}, {"-i", ""},
+			{"-l", "-1"}, {"-l", "9223372036854775808"}, {"-l", "1x"},
+			{"-d", "1.5"}, {"-d", "NaN"}, {"-d", "abc"}
+		};
+		for(String[] args : invalid) {
+			try {
+				parser.parseThrow(args);
+				fail("InvalidValueException not raised for " + Arrays.toString(args));
+			} catch(InvalidValueException e) {}
+		}
+		
+		parser = new ArgParse("Test");
+		int[] consumed = new int[1];
+		i = parser.add(INT, "-i");
+		i.consume((x) -> consumed[0] = x);
+		res = parser.parseThrow(new String[]{"-i", "12"});
+		assertEquals(res.getInt(i), 12);
+		assertEquals(consumed[0], 12);
+	}
+	
+	@Test
+	public void test_primitive_numbers_override() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		IntArgument hex = parser.add(() -> new IntArgument() {
+			@Override
+			public Integer parse(String value) throws ArgParseException {
+				return Integer.parseInt(value, 16);
+			}
+		}, "-x");
+		LongArgument even = parser.add(() -> new LongArgument() {
+			@Override
+			protected void check(Long value) throws InvalidValueException {
+				if(value % 2 != 0)
+					throw new InvalidValueException("-e", value.toString());
+			}
+		}, "-e");
+		ParseResult res = parser.parseThrow(new String[]{"-x", "ff", "-e", "4"});
+		assertEquals(res.getInt(hex), 255);
+		assertEquals(res.getLong(even), 4);
+		try {
+			parser.parseThrow(new String[]{"-e", "3"});
+			fail("InvalidValueException not raised");
+		} catch(InvalidValueException e) {}
+		assertTrue(parser.add(INT, "-i").hasPrimitiveParsing());
+		assertFalse(hex.hasPrimitiveParsing());
+	}
+	
 	@Test
 	public void test_file() throws IOException, ArgParseException {
 		ArgParse parser = new ArgParse("Test");
@@ -265,6 +779,145 @@ public class ArgParseTest implements Type {
 		Map<String, Object> res = parser.parseThrow(args);
 		assertEquals(res.get("f"), tmpFile);
 		assertEquals(res.get("d"), tmpDir);
+		
+		try {
+			parser.parseThrow(new String[]{"-d", ""});
+			fail("InvalidValueException not raised for an empty value");
+		} catch(InvalidValueException e) {
+			assertTrue(e.getMessage().endsWith("must not be empty"));
+		}
+	}
+	
+	@Test
+	public void test_path() throws IOException, ArgParseException {
+		Path dir = Files.createTempDirectory("paths");
+		Path file = dir.resolve("sub").resolve("created");
+		AttributeCache cache = new AttributeCache(1, TimeUnit.HOURS);
+		ArgParse parser = new ArgParse("Test");
+		PathArgument d = parser.add(PATH, "-d").exists(true).directory(true).cache(cache);
+		PathArgument f = parser.add("path", "-f");
+		f.create(false, true, true).cache(cache);
+		ParseResult res = parser.parseThrow(new String[]{"-d", dir.toString(), "-f", file.toString()});
+		assertEquals(res.get(d), dir);
+		assertEquals(res.get(f), file);
+		assertTrue(Files.isRegularFile(file));
+		
+		for(String[] args : new String[][]{{"-d", file.toString()}, {"-f", dir.toString()}, {"-d", dir.resolve("missing").toString()}, {"-d", ""}, {"-f", ""}}) {
+			try {
+				parser.parseThrow(args);
+				fail("InvalidValueException not raised for " + Arrays.toString(args));
+			} catch(InvalidValueException e) {}
+		}
+		
+		// Cached attributes are used until invalidated
+		Files.delete(file);
+		Files.createDirectory(file);
+		assertEquals(parser.parseThrow(new String[]{"-f", file.toString()}).get(f), file);
+		cache.clear();
+		try {
+			parser.parseThrow(new String[]{"-f", file.toString()});
+			fail("InvalidValueException not raised for a directory");
+		} catch(InvalidValueException e) {
+			assertTrue(e.getMessage().endsWith("must be a file"));
+		}
+		
+		// Every setting counts as a change
+		int mod = f.getModCount();
+		f.exists(true);
+		f.create(false, true, false);
+		f.cache(null);
+		assertEquals(f.getModCount(), mod + 3);
+	}
+	
+	@Test
+	public void test_parallel_validation() throws IOException, ArgParseException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			// Assertions only pass if all three run at the same time
+			CountDownLatch latch = new CountDownLatch(3);
+			ArgParse parser = new ArgParse("Test").parallelValidation(executor);
+			for(String name : new String[]{"-a", "-b", "-c"}) {
+				parser.add(STRING, name).ioBound(true).andAssert((v) -> {
+					latch.countDown();
+					try {
+						return latch.await(5, TimeUnit.SECONDS) && !v.startsWith("bad");
+					} catch(InterruptedException e) {
+						return false;
+					}
+				});
+			}
+			parser.add(INT, "-i");
+			ParseResult res = parser.parseThrow(new String[]{"-a", "x", "-i", "1", "-b", "y", "-c", "z"});
+			assertEquals(res.get("a"), "x");
+			assertEquals(res.get("c"), "z");
+			assertEquals(res.get("i"), 1);
+			
+			ArgParse files = new ArgParse("Test").parallelValidation(executor);
+			files.add(FILE, "-f").exists(true).andAssert((f) -> {
+				try {
+					Thread.sleep(100);
+				} catch(InterruptedException e) {}
+				return true;
+			});
+			files.add(FILE, "-g").exists(true);
+			files.add(INT, "-i").required(true);
+			String missing = new File("missing-" + System.nanoTime()).getPath();
+			try {
+				files.parseThrow(new String[]{"-f", missing, "-g", "pom.xml", "-i", "x"});
+				fail("InvalidValueException not raised");
+			} catch(InvalidValueException e) {
+				assertEquals(e.getArgumentName(), "-f");
+			}
+			List<ParseError> errors = files.parseCollect(new String[]{"-f", missing, "-g", missing, "-i", "x", "-g", "pom.xml"}).errors();
+			assertEquals(errors.size(), 3);
+			int[] positions = {0, 2, 4};
+			for(int i = 0; i < positions.length; i++)
+				assertEquals(errors.get(i).getPosition(), positions[i]);
+			res = files.parseThrow(new String[]{"-g", "pom.xml", "-i", "2", "-f", "pom.xml"});
+			assertEquals(res.get("f"), new File("pom.xml"));
+			assertEquals(res.get("g"), new File("pom.xml"));
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_parallel_validation_order() throws ArgParseException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<String> ran = new ArrayList<>();
+			ArgParse parser = new ArgParse("Test").deferActions().parallelValidation(executor);
+			StringArgument async = parser.add(STRING, "-a");
+			async.ioBound(true).andAssert((v) -> {
+				try {
+					Thread.sleep(20);
+				} catch(InterruptedException e) {}
+				return !v.startsWith("bad");
+			}).dest("x");
+			async.consume((v) -> ran.add("a" + v));
+			StringArgument sync = parser.add(STRING, "-s");
+			sync.dest("x");
+			sync.consume((v) -> ran.add("s" + v));
+			
+			// Values sharing a destination and deferred actions keep the command line order
+			ParseResult res = parser.parseThrow(new String[]{"-a", "1", "-s", "2", "-a", "3", "-s", "4"});
+			assertEquals(res.get("x"), "4");
+			assertEquals(ran, Arrays.asList("a1", "s2", "a3", "s4"));
+			ran.clear();
+			res = parser.parseThrow(new String[]{"-s", "1", "-a", "2"});
+			assertEquals(res.get("x"), "2");
+			assertEquals(ran, Arrays.asList("s1", "a2"));
+			
+			// An invalid value validated concurrently falls back to the default value, like other arguments
+			ran.clear();
+			async.setDefault("def");
+			res = parser.parseCollect(new String[]{"-a", "bad"});
+			assertEquals(res.errors().size(), 1);
+			assertEquals(res.get(async), "def");
+			assertTrue(ran.isEmpty());
+		} finally {
+			executor.shutdown();
+		}
 	}
 	
 	@Test
@@ -296,6 +949,104 @@ public class ArgParseTest implements Type {
 		} catch(InvalidValueException e) {}
 	}
 	
+	@Test
+	public void test_array_split() throws ArgParseException {
+		String[] values = {"a,b,c", " a , b ,c ", "a,,b", ",a", "a,", "a, ,", ",", " , ", "", " ", "a", "a\t,\nb", ",,a,,"};
+		for(String value : values) {
+			ArgParse parser = new ArgParse("Test");
+			StringArrayArgument arg = parser.add(STRING_ARRAY, "-a");
+			List<String> res = parser.parseThrow(new String[]{"-a", value}).get(arg);
+			assertEquals("Splitting '" + value + "'", Arrays.asList(value.split("\\s*,\\s*")), res);
+		}
+		ArgParse parser = new ArgParse("Test");
+		parser.add(STRING_ARRAY, "-a").separator('|');
+		assertEquals(parser.parseThrow(new String[]{"-a", "x | y|z"}).get("a"), Arrays.asList("x", "y", "z"));
+		
+		// More elements than the initial parsing buffer
+		List<String> many = new ArrayList<>();
+		for(int i = 0; i < 40; i++)
+			many.add("e" + i);
+		assertEquals(parser.parseThrow(new String[]{"-a", String.join("|", many)}).get("a"), many);
+		assertEquals(parser.parseThrow(new String[]{"-a", "x|y"}).get("a"), Arrays.asList("x", "y"));
+	}
+	
+	@Test
+	public void test_array_split_whitespace() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(STRING_ARRAY, "-s").separator(' ');
+		parser.add(STRING_ARRAY, "-t").separator('\t');
+		parser.add(INT_ARRAY, "-i").separator(' ');
+		assertEquals(parser.parseThrow(new String[]{"-s", "a  b \t c"}).get("s"), Arrays.asList("a", "b", "c"));
+		assertEquals(parser.parseThrow(new String[]{"-t", "a\t\tb \t c"}).get("t"), Arrays.asList("a", "b", "c"));
+		assertArrayEquals((int[]) parser.parseThrow(new String[]{"-i", "1  2   3 "}).get("i"), new int[]{1, 2, 3});
+		
+		Random random = new Random(42);
+		char[] alphabet = {'a', 'b', ' ', ' ', '\t', ',', '\n'};
+		for(char sep : new char[]{' ', '\t', ','}) {
+			String regex = "\\s*" + Pattern.quote(String.valueOf(sep)) + "\\s*";
+			for(int n = 0; n < 20000; n++) {
+				char[] chars = new char[random.nextInt(8)];
+				for(int c = 0; c < chars.length; c++)
+					chars[c] = alphabet[random.nextInt(alphabet.length)];
+				String value = new String(chars);
+				List<String> split = new ArrayList<>();
+				Splitter it = new Splitter(value, sep);
+				while(it.next())
+					split.add(it.element());
+				assertEquals("Splitting '" + value + "' on '" + sep + "'", Arrays.asList(value.split(regex)), split);
+			}
+		}
+	}
+	
+	@Test
+	public void test_primitive_arrays() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		IntArrayArgument ports = parser.add(INT_ARRAY, "-p").ge(1).lt(65536);
+		LongArrayArgument offsets = parser.add(LONG_ARRAY, "-o").separator(':');
+		ParseResult res = parser.parseThrow(new String[]{"-p", "80, 443 ,8080", "-o", "-1:9223372036854775807"});
+		assertArrayEquals(res.get(ports), new int[]{80, 443, 8080});
+		assertArrayEquals(res.get(offsets), new long[]{-1, Long.MAX_VALUE});
+		assertArrayEquals(parser.parseThrow(new String[]{"-p", "1,"}).get(ports), new int[]{1});
+		
+		String[][] invalid = {{"-p", "0"}, {"-p", "80,65536"}, {"-p", "80,,443"}, {"-p", "8 0"}, {"-o", "1:x"}};
+		for(String[] args : invalid) {
+			try {
+				parser.parseThrow(args);
+				fail("InvalidValueException not raised for " + Arrays.toString(args));
+			} catch(InvalidValueException e) {}
+		}
+		
+		// Lists longer than the parsing buffer, and a shorter one parsed after them
+		for(int size : new int[]{17, 3000, 2}) {
+			StringBuilder list = new StringBuilder();
+			long[] expected = new long[size];
+			for(int i = 0; i < size; i++) {
+				expected[i] = (long) i * Integer.MAX_VALUE;
+				list.append(i == 0 ? "" : ":").append(expected[i]);
+			}
+			assertArrayEquals(parser.parseThrow(new String[]{"-o", list.toString()}).get(offsets), expected);
+		}
+		
+		parser = new ArgParse("Test");
+		parser.add(INT_ARRAY, "-p").help("Ports").setDefault(new int[]{1, 2});
+		assertTrue(parser.help().contains("(default: [1, 2])"));
+	}
+	
+	@Test
+	public void test_map() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		StringMapArgument arg = parser.add(STRING_MAP, "-m");
+		Map<String, String> res = parser.parseThrow(new String[]{"-m", "a:1, b : 2,c:3 "}).get(arg);
+		assertEquals(res.size(), 3);
+		assertEquals(res.get("a"), "1");
+		assertEquals(res.get("b"), "2");
+		assertEquals(res.get("c"), "3 ");
+		try {
+			parser.parseThrow(new String[]{"-m", "a:1,b"});
+			fail("InvalidValueException not raised");
+		} catch(InvalidValueException e) {}
+	}
+	
 	@Test
 	public void test_map_arg_choices() {
 		ArgParse parser = new ArgParse("Test");
@@ -315,4 +1066,463 @@ public class ArgParseTest implements Type {
 			fail("RuntimeException not raised when trying to add choices to an ArrayArgument");
 		} catch(RuntimeException e){}
 	}
+	
+	@Test
+	public void test_choices_set() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(STRING, "-s").choices("b", "a", "b");
+		assertTrue(parser.help().contains("<b | a>"));
+		assertEquals(parser.parseThrow(new String[]{"-s", "a"}).get("s"), "a");
+		try {
+			parser.parseThrow(new String[]{"-s", "c"});
+			fail("InvalidValueException not raised");
+		} catch(InvalidValueException e) {
+			assertEquals(e.getMessage(), "Invalid argument value for -s : c. Possible choices are [b, a]");
+		}
+	}
+	
+	@Test
+	public void test_file_choices() throws IOException, ArgParseException {
+		Path dir = Files.createTempDirectory("choices");
+		Path file = dir.resolve("ids.txt");
+		StringBuilder ids = new StringBuilder();
+		for(int i = 10000; i < 60000; i += 2)
+			ids.append("id").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+		Files.write(file, ids.toString().getBytes(StandardCharsets.UTF_8));
+		SortedFileChoices source = SortedFileChoices.open(file).reloadInterval(0, TimeUnit.SECONDS);
+		assertEquals(source.size(), 25000);
+		
+		ArgParse parser = new ArgParse("Test");
+		parser.add(STRING, "--id").choices(source);
+		ArgParse other = new ArgParse("Other");
+		other.add(STRING, "--other").choices(source);
+		assertTrue(parser.help().contains("<string in " + file + ">"));
+		for(String id : new String[]{"id10000", "id10002", "id33336", "id59998"}) {
+			assertEquals(parser.parseThrow(new String[]{"--id", id}).get("id"), id);
+			assertEquals(other.parseThrow(new String[]{"--other", id}).get("other"), id);
+		}
+		for(String id : new String[]{"id10001", "id", "id59998x", "id1", "", "\u00e9"}) {
+			try {
+				parser.parseThrow(new String[]{"--id", id});
+				fail("InvalidValueException not raised for " + id);
+			} catch(InvalidValueException e) {}
+		}
+		
+		Path next = dir.resolve("ids.next");
+		Files.write(next, "a\nb\n\nc\n".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(next, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+		Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		assertEquals(parser.parseThrow(new String[]{"--id", "b"}).get("id"), "b");
+		assertEquals(source.size(), 3);
+		
+		Files.write(next, "b\na\n".getBytes(StandardCharsets.UTF_8));
+		try {
+			SortedFileChoices.open(next);
+			fail("IOException not raised for unsorted file");
+		} catch(IOException e) {}
+	}
+	
+	enum Level {
+		DEBUG, INFO, WARN
+	}
+	
+	@Test
+	public void test_enum_arg() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		EnumArgument<Level> level = parser.add(EnumArgument.of(Level.class), "-l");
+		level.setDefault(Level.INFO);
+		EnumSetArgument<Level> levels = parser.add(EnumSetArgument.of(Level.class), "-s").ignoreCase(true);
+		assertTrue(parser.help().contains("<DEBUG | INFO | WARN>"));
+		ParseResult res = parser.parseThrow(new String[]{"-s", "warn, DEBUG,Warn"});
+		assertEquals(res.get(level), Level.INFO);
+		assertEquals(res.get(levels), EnumSet.of(Level.DEBUG, Level.WARN));
+		res = parser.parseThrow(new String[]{"-l", "WARN"});
+		assertEquals(res.get(level), Level.WARN);
+		try {
+			parser.parseThrow(new String[]{"-l", "warn"});
+			fail("InvalidValueException not raised");
+		} catch(InvalidValueException e) {
+			assertEquals(e.getChoices(), Arrays.asList("DEBUG", "INFO", "WARN"));
+		}
+		try {
+			parser.parseThrow(new String[]{"-s", "INFO,ERROR"});
+			fail("InvalidValueException not raised");
+		} catch(InvalidValueException e) {
+			assertEquals(e.getValue(), "ERROR");
+		}
+	}
+	
+	@Test
+	public void test_type_registry() throws ArgParseException, IOException {
+		ArgParse parser = new ArgParse("Test");
+		IntArgument i = parser.add(IntArgument::new, "-i");
+		LongArgument l = parser.add("long", "-l");
+		ParseResult res = parser.parseThrow(new String[]{"-i", "1", "-l", "2"});
+		assertEquals(res.get(i), Integer.valueOf(1));
+		assertEquals(res.get(l), Long.valueOf(2));
+		try {
+			parser.add("unknown", "-u");
+			fail("IllegalArgumentException not raised for an unknown type");
+		} catch(IllegalArgumentException e) {}
+		
+		TypeRegistry types = new TypeRegistry(TypeRegistry.global())
+			.register("upper", StringArgument.class, () -> new StringArgument() {
+				@Override
+				public String parse(String value) throws ArgParseException {
+					return super.parse(value).toUpperCase();
+				}
+			});
+		parser = new ArgParse("Test").types(types);
+		StringArgument s = parser.add("upper", "-s");
+		StringArgument t = parser.add(Type.STRING, "-t");
+		assertEquals(parser.parseThrow(new String[]{"-s", "abc"}).get(s), "ABC");
+		// Registering a subclass factory doesn't change what the class maps to
+		assertEquals(t.getClass(), StringArgument.class);
+		assertEquals(types.nameOf(StringArgument.class), "string");
+		assertEquals(types.nameOf(s.getClass()), "upper");
+		assertEquals(types.nameOf(IntArgument.class), "int");
+		assertNull(TypeRegistry.global().factory("upper"));
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		parser.writeSnapshot(out);
+		ArgParse loaded = ArgParse.readSnapshot(new ByteArrayInputStream(out.toByteArray()), types);
+		ParseResult res2 = loaded.parseThrow(new String[]{"-s", "abc", "-t", "def"});
+		assertEquals(res2.get("s"), "ABC");
+		assertEquals(res2.get("t"), "def");
+	}
+	
+	static class ServerOptions {
+		@Option(value = {"-p", "--port"}, help = "Port to listen on", required = true)
+		int port;
+		@Option(value = "-t", defaultValue = "30")
+		Long timeout;
+		@Option(value = {"-m", "--mode"}, choices = {"fast", "safe"}, defaultValue = "safe")
+		String mode;
+		@Option("-v")
+		boolean verbose;
+		@Option("-d")
+		File dir;
+	}
+	
+	@Test
+	public void test_generated_parser() throws ArgParseException {
+		ServerOptions opts = ArgParseTest_ServerOptionsParser.parse(new String[]{"--port", "8080", "-v", "-d", "pom.xml"});
+		assertEquals(opts.port, 8080);
+		assertEquals(opts.timeout, Long.valueOf(30));
+		assertEquals(opts.mode, "safe");
+		assertTrue(opts.verbose);
+		assertEquals(opts.dir, new File("pom.xml"));
+		opts = ArgParseTest_ServerOptionsParser.parse(new String[]{"-p", "1", "-m", "fast", "-t", "5"});
+		assertEquals(opts.mode, "fast");
+		assertEquals(opts.timeout, Long.valueOf(5));
+		assertFalse(opts.verbose);
+		assertNull(opts.dir);
+		assertTrue(ArgParseTest_ServerOptionsParser.HELP.contains("--mode\t<fast | safe>"));
+		
+		String[][] invalid = {{"-t", "5"}, {"-p", "x"}, {"-p", "1", "-m", "slow"}, {"-p"}, {"-p", "1", "-x"}, {"-p", "1", "-d", "src"}};
+		Class<?>[] errors = {MissingArgumentException.class, InvalidValueException.class, InvalidValueException.class,
+			ValueRequiredException.class, UnknownArgumentException.class, InvalidValueException.class};
+		for(int i = 0; i < invalid.length; i++) {
+			try {
+				ArgParseTest_ServerOptionsParser.parse(invalid[i]);
+				fail(errors[i].getSimpleName() + " not raised for " + Arrays.toString(invalid[i]));
+			} catch(ArgParseException e) {
+				assertEquals(e.getClass(), errors[i]);
+			}
+		}
+	}
+	
+	static abstract class CommonOptions {
+		@Option("-q")
+		boolean quiet;
+		@Option(value = "-n", defaultValue = "1")
+		int count;
+	}
+	
+	static class CopyOptions extends CommonOptions {
+		@Option(value = "-o", required = true)
+		String output;
+	}
+	
+	static class QuietOptions extends CommonOptions {
+	}
+	
+	@Test
+	public void test_generated_parser_inheritance() throws Exception {
+		CopyOptions copy = ArgParseTest_CopyOptionsParser.parse(new String[]{"-o", "out", "-q"});
+		assertEquals(copy.output, "out");
+		assertTrue(copy.quiet);
+		assertEquals(copy.count, 1);
+		assertTrue(ArgParseTest_CopyOptionsParser.HELP.startsWith("    -q"));
+		
+		QuietOptions quiet = ArgParseTest_QuietOptionsParser.parse(new String[]{"-n", "3"});
+		assertFalse(quiet.quiet);
+		assertEquals(quiet.count, 3);
+		try {
+			ArgParseTest_QuietOptionsParser.parse(new String[]{"-o", "out"});
+			fail("UnknownArgumentException not raised");
+		} catch(UnknownArgumentException e) {}
+		try {
+			Class.forName(ArgParseTest.class.getName() + "_CommonOptionsParser");
+			fail("A parser has been generated for an abstract class");
+		} catch(ClassNotFoundException e) {}
+	}
+	
+	@Test
+	public void test_snapshot() throws Exception {
+		ArgParse parser = new ArgParse("Test")
+			.description("Snapshot test")
+			.version("1.0")
+			.defaultHelp();
+		parser.label("Options :");
+		parser.add(INT, "-i", "--int").ge(0).lt(10).required(true).help("An int");
+		parser.add(STRING, "-s").pattern("[a-z]+").choices("abc", "def").setDefault("abc");
+		parser.add(LONG_ARRAY, "-l").separator(';').setDefault(new long[]{1, 2});
+		parser.add(STRING_MAP, "-m").separators(';', '=').dest("map");
+		parser.add(DOUBLE, "-d").setDefault(1.5);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		parser.writeSnapshot(out);
+		
+		ArgParse loaded = ArgParse.readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(loaded.help(), parser.help());
+		String[] args = {"--int", "5", "-l", "3;4", "-m", "a=1;b=2"};
+		ParseResult res = loaded.parseThrow(args);
+		assertEquals(res.get("i"), 5);
+		assertEquals(res.get("s"), "abc");
+		assertEquals(res.get("d"), 1.5);
+		assertArrayEquals((long[]) res.get("l"), new long[]{3, 4});
+		assertEquals(((Map<?, ?>) res.get("map")).get("b"), "2");
+		
+		String[][] invalid = {{"-s", "abc"}, {"-i", "10"}, {"-i", "1", "-s", "xyz"}};
+		for(String[] a : invalid) {
+			try {
+				loaded.parseThrow(a);
+				fail("ArgParseException not raised for " + Arrays.toString(a));
+			} catch(ArgParseException e) {}
+		}
+		try {
+			loaded.add(BOOL, "-i");
+			fail("ArgumentConflictException not raised for a loaded argument name");
+		} catch(ArgumentConflictException e) {}
+		
+		// Parser settings and large choice lists are kept
+		String[] choices = new String[70000];
+		for(int i = 0; i < choices.length; i++)
+			choices[i] = "c" + i;
+		ArgParse settings = new ArgParse("Test").stacklessErrors().deferActions(Runnable::run);
+		settings.add(STRING, "-c").choices(choices).required(true);
+		out = new ByteArrayOutputStream();
+		settings.writeSnapshot(out);
+		loaded = ArgParse.readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+		List<String> ran = new ArrayList<>();
+		loaded.add(STRING, "-x").consume(ran::add);
+		assertEquals(loaded.parseThrow(new String[]{"-c", "c69999"}).get("c"), "c69999");
+		try {
+			loaded.parseThrow(new String[]{"-x", "x", "-c", "c70000"});
+			fail("InvalidValueException not raised");
+		} catch(InvalidValueException e) {
+			assertEquals(e.getStackTrace().length, 0);
+		}
+		assertTrue(ran.isEmpty());
+		
+		parser.add(BOOL, "-b").action(() -> {});
+		try {
+			parser.writeSnapshot(new ByteArrayOutputStream());
+			fail("NotSerializableException not raised for an argument with actions");
+		} catch(NotSerializableException e) {}
+		try {
+			ArgParse.readSnapshot(new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+			fail("IOException not raised for an invalid snapshot");
+		} catch(IOException e) {}
+	}
+	
+	@Test
+	public void test_name_validation_fuzz() {
+		Pattern regex = Pattern.compile("--?[a-zA-Z0-9]+(-?[a-zA-Z0-9]*)*");
+		char[] alphabet = {'-', '-', 'a', 'Z', '0', '9', '_', ' ', '\u00e9', '/'};
+		Random random = new Random(42);
+		for(int i = 0; i < 200000; i++) {
+			char[] name = new char[random.nextInt(12)];
+			for(int j = 0; j < name.length; j++)
+				name[j] = alphabet[random.nextInt(alphabet.length)];
+			String n = new String(name);
+			assertEquals(n, regex.matcher(n).matches(), Argument.isValidName(n));
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void test_name_validation_linear() {
+		// Makes the regular expression backtrack exponentially
+		assertFalse(Argument.isValidName("-" + repeat("a-", 50) + "!"));
+		long small = validationTime(100000);
+		long large = validationTime(1600000);
+		assertTrue("Validation time grows faster than length : " + small + "ns then " + large + "ns", large < small * 16 * 4);
+	}
+	
+	private static String repeat(String s, int count) {
+		StringBuilder sb = new StringBuilder(s.length() * count);
+		for(int i = 0; i < count; i++)
+			sb.append(s);
+		return sb.toString();
+	}
+	
+	/**
+	 * Best time to validate a long invalid name
+	 */
+	private static long validationTime(int length) {
+		String name = "-" + repeat("a", length) + "!";
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < 20; i++) {
+			long start = System.nanoTime();
+			assertFalse(Argument.isValidName(name));
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+	
+	@Test(timeout = 10000)
+	public void test_pattern_timeout() throws ArgParseException {
+		ArgParse parser = new ArgParse("Test");
+		StringArgument s = parser.add(STRING, "-s")
+			.pattern("(a|a)+\\1b")
+			.matchTimeout(50, TimeUnit.MILLISECONDS);
+		assertEquals(parser.parseThrow(new String[]{"-s", "aaab"}).get(s), "aaab");
+		try {
+			parser.parseThrow(new String[]{"-s", "aac"});
+			fail("InvalidValueException not raised for a value not matching the pattern");
+		} catch(InvalidValueException e) {}
+		try {
+			// Backtracks exponentially, the back reference prevents the regex engine from memoizing
+			parser.parseThrow(new String[]{"-s", repeat("a", 64) + "c"});
+			fail("InvalidValueException not raised when pattern matching timed out");
+		} catch(InvalidValueException e) {
+			assertTrue(e.getMessage().contains("in time"));
+		}
+	}
+	
+	@Test
+	public void test_deferred_actions() throws Exception {
+		List<String> calls = Collections.synchronizedList(new ArrayList<>());
+		ArgParse parser = new ArgParse("Test").deferActions();
+		parser.add(STRING, "-s").consume(calls::add);
+		parser.add(INT, "-i");
+		try {
+			parser.parseThrow(new String[]{"-s", "x", "-i", "y"});
+			fail("InvalidValueException not raised");
+		} catch(InvalidValueException e) {}
+		assertTrue("Actions ran although parsing failed", calls.isEmpty());
+		parser.parseThrow(new String[]{"-s", "x", "-i", "1"});
+		assertEquals(calls, Arrays.asList("x"));
+		
+		// Actions run in command line order, and eager ones before required arguments are checked
+		calls.clear();
+		parser = new ArgParse("Test").deferActions();
+		parser.add(STRING, "-a").consume((x) -> calls.add("a" + x));
+		Argument<String> b = parser.add(STRING, "-b").consume((x) -> calls.add("b" + x));
+		parser.add(STRING, "-c").consume((x) -> calls.add("c" + x)).after(b);
+		parser.add(BOOL, "-e").eager(true).action(() -> calls.add("eager"));
+		parser.parseThrow(new String[]{"-a", "1", "-b", "2", "-a", "3"});
+		assertEquals(calls, Arrays.asList("a1", "b2", "a3"));
+		calls.clear();
+		parser.parseThrow(new String[]{"-c", "1", "-a", "2", "-b", "3"});
+		assertEquals(calls, Arrays.asList("a2", "b3", "c1"));
+		calls.clear();
+		parser.add(INT, "-r").required(true);
+		try {
+			parser.parseThrow(new String[]{"-a", "1", "-e"});
+			fail("MissingArgumentException not raised");
+		} catch(MissingArgumentException e) {}
+		assertEquals(calls, Arrays.asList("eager"));
+		
+		calls.clear();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			parser = new ArgParse("Test").deferActions(executor);
+			Argument<String> open = parser.add(STRING, "-o").consume((x) -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {}
+				calls.add("open " + x);
+			});
+			Argument<String> use = parser.add(STRING, "-u").consume((x) -> calls.add("use " + x));
+			parser.add(STRING, "-d").setDefault("d").consume((x) -> calls.add("default " + x));
+			use.after(open);
+			parser.parseThrow(new String[]{"-u", "1", "-o", "a", "-u", "2"});
+			assertEquals(calls.size(), 4);
+			assertEquals(calls.subList(calls.indexOf("open a"), calls.size()), Arrays.asList("open a", "use 1", "use 2"));
+			try {
+				open.after(use);
+				fail("IllegalArgumentException not raised for cyclic ordering");
+			} catch(IllegalArgumentException e) {}
+			
+			parser.add(BOOL, "-f").action(() -> {
+				throw new IllegalStateException("failed");
+			});
+			try {
+				parser.parseThrow(new String[]{"-f"});
+				fail("Action exception not raised");
+			} catch(IllegalStateException e) {}
+			
+			// Deferred actions create exceptions like the parsing thread
+			List<Boolean> stackless = Collections.synchronizedList(new ArrayList<>());
+			parser = new ArgParse("Test").stacklessErrors().deferActions(executor);
+			parser.add(STRING, "-s").consume((x) -> stackless.add(ArgParseException.isStackless()));
+			parser.parseThrow(new String[]{"-s", "a"});
+			parser.parseCollect(new String[]{"-s", "b"});
+			assertEquals(stackless, Arrays.asList(true, true));
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void test_parse_collect() {
+		ArgParse parser = new ArgParse("Test");
+		parser.add(INT, "-i");
+		parser.add(STRING, "-s");
+		parser.add(BOOL, "-r").required(true);
+		parser.add(BOOL, "-b");
+		ParseResult res = parser.parseCollect(new String[]{"-x", "-i", "bad", "-b", "-s"});
+		assertTrue(res.hasErrors());
+		assertEquals(res.get("b"), true);
+		List<ParseError> errors = res.errors();
+		assertEquals(errors.size(), 4);
+		Class<?>[] types = {UnknownArgumentException.class, InvalidValueException.class, ValueRequiredException.class, MissingArgumentException.class};
+		int[] positions = {0, 1, 4, -1};
+		for(int i = 0; i < types.length; i++) {
+			assertEquals(errors.get(i).getError().getClass(), types[i]);
+			assertEquals(errors.get(i).getPosition(), positions[i]);
+			assertEquals(errors.get(i).getError().getStackTrace().length, 0);
+		}
+		assertEquals(errors.get(0).getToken(), "-x");
+		assertEquals(errors.get(1).getMessage(), "Invalid argument value for -i : bad");
+		assertEquals(((InvalidValueException) errors.get(1).getError()).getValue(), "bad");
+		assertEquals(errors.get(3).getMessage(), "Argument -r is missing");
+		assertFalse(parser.parseCollect(new String[]{"-r"}).hasErrors());
+		
+		// A required argument with an invalid value is not reported as missing too
+		parser.add(INT, "-n").required(true);
+		errors = parser.parseCollect(new String[]{"-r", "-n", "x"}).errors();
+		assertEquals(errors.size(), 1);
+		assertTrue(errors.get(0).getError() instanceof InvalidValueException);
+		errors = parser.parseCollect(new String[]{"-r", "-n"}).errors();
+		assertEquals(errors.size(), 1);
+		assertTrue(errors.get(0).getError() instanceof ValueRequiredException);
+		
+		try {
+			parser.parseThrow(new String[]{"-x"});
+			fail("UnknownArgumentException not raised");
+		} catch(ArgParseException e) {
+			assertTrue(e.getStackTrace().length > 0);
+		}
+		parser.stacklessErrors();
+		try {
+			parser.parseThrow(new String[]{"-x"});
+			fail("UnknownArgumentException not raised");
+		} catch(ArgParseException e) {
+			assertEquals(e.getStackTrace().length, 0);
+			assertEquals(e.getMessage(), "Unknown argument : -x");
+		}
+		assertTrue(new ArgParseException("test").getStackTrace().length > 0);
+	}
 }